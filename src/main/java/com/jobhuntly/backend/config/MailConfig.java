@@ -23,6 +23,7 @@ public class MailConfig {
         p.put("mail.smtp.auth", "true");
         p.put("mail.smtp.starttls.enable", "true");
         p.put("mail.smtp.starttls.required", "true");
+        smtpTimeouts(p, env);
         return s;
     }
 
@@ -50,6 +51,16 @@ public class MailConfig {
         p.put("mail.smtp.auth", "true");
         p.put("mail.smtp.starttls.enable", "true");
         p.put("mail.smtp.starttls.required", "true");
+        smtpTimeouts(p, env);
         return s;
     }
+
+    // Không đặt thì JavaMail chờ vô hạn: 1 server SMTP treo sẽ giữ thread outbox (và lease của cả lô) mãi
+    private static void smtpTimeouts(Properties p, Environment env) {
+        String connect = String.valueOf(env.getProperty("app.mail.smtp.connect-timeout-ms", Long.class, 10_000L));
+        String io = String.valueOf(env.getProperty("app.mail.smtp.timeout-ms", Long.class, 30_000L));
+        p.put("mail.smtp.connectiontimeout", connect);
+        p.put("mail.smtp.timeout", io);
+        p.put("mail.smtp.writetimeout", io);
+    }
 }
@@ -4,6 +4,7 @@ import com.jobhuntly.backend.security.AuthenticationFilter;
 import com.jobhuntly.backend.security.WebEndpoints;
 import com.jobhuntly.backend.security.handlers.RestAccessDeniedHandler;
 import com.jobhuntly.backend.security.handlers.RestAuthenticationEntryPoint;
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -68,6 +69,8 @@ public class SecurityConfig {
                 )
 
                 .authorizeHttpRequests(auth -> auth
+                                // async dispatch (Mono/DeferredResult) đã được kiểm tra ở request gốc
+                                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                                 .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                                 .requestMatchers(HttpMethod.POST, "/api/v1/application").authenticated()
                                 .requestMatchers(HttpMethod.POST, "/api/v1/report").authenticated()
@@ -86,8 +89,11 @@ public class SecurityConfig {
                                 .requestMatchers(
                                         "/swagger-ui/**",
                                         "/v3/api-docs/**",
-                                        "/actuator/health"
+                                        "/actuator/health",
+                                        "/actuator/health/**"
                                 ).permitAll()
+                                // metrics và các endpoint actuator khác chỉ cho admin
+                                .requestMatchers("/actuator/**").hasRole("ADMIN")
                                 .anyRequest().authenticated()
                 )
 
@@ -0,0 +1,56 @@
+package com.jobhuntly.backend.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+
+@Configuration
+public class WebClientConfig {
+
+    // Gemini + tải CV cho AI match: có timeout, pool riêng, buffer đủ cho file PDF
+    @Bean
+    public WebClient aiWebClient(
+            @Value("${gemini.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${gemini.read-timeout-ms:60000}") long readTimeoutMs,
+            @Value("${gemini.max-connections:50}") int maxConnections,
+            @Value("${gemini.max-in-memory-bytes:20971520}") int maxInMemoryBytes) {
+        ConnectionProvider pool = ConnectionProvider.builder("ai-http")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofSeconds(10))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient http = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(readTimeoutMs));
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .codecs(c -> c.defaultCodecs().maxInMemorySize(maxInMemoryBytes))
+                .build();
+    }
+
+    // Proxy tải CV từ Cloudinary: stream thẳng, không giới hạn buffer vì body không bao giờ được gom vào RAM
+    @Bean
+    public WebClient cvWebClient(
+            @Value("${app.cv-download.connect-timeout-ms:5000}") int connectTimeoutMs,
+            @Value("${app.cv-download.response-timeout-ms:30000}") long responseTimeoutMs,
+            @Value("${app.cv-download.max-connections:100}") int maxConnections) {
+        ConnectionProvider pool = ConnectionProvider.builder("cv-http")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofSeconds(10))
+                .maxIdleTime(Duration.ofSeconds(30))
+                .build();
+        HttpClient http = HttpClient.create(pool)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeoutMs)
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs));
+        return WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .build();
+    }
+}
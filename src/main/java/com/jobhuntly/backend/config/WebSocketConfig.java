@@ -4,6 +4,7 @@ import com.jobhuntly.backend.websocket.WsHandshakeAuthInterceptor;
 import com.jobhuntly.backend.websocket.WsHandshakeHandler;
 import com.jobhuntly.backend.websocket.WsSubscribeGuard;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.simp.config.ChannelRegistration;
@@ -57,10 +58,41 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
                 );
     }
 
+    // simple (1 node) | redis (simple broker + bridge qua Redis, xem WsClusterMessenger) | relay (STOMP broker ngoài)
+    @Value("${app.websocket.cluster.mode:simple}")
+    private String clusterMode;
+
+    @Value("${app.websocket.relay.host:localhost}")
+    private String relayHost;
+
+    @Value("${app.websocket.relay.port:61613}")
+    private int relayPort;
+
+    @Value("${app.websocket.relay.login:guest}")
+    private String relayLogin;
+
+    @Value("${app.websocket.relay.passcode:guest}")
+    private String relayPasscode;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry registry) {
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
+        if ("relay".equalsIgnoreCase(clusterMode)) {
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(relayHost)
+                    .setRelayPort(relayPort)
+                    .setClientLogin(relayLogin)
+                    .setClientPasscode(relayPasscode)
+                    .setSystemLogin(relayLogin)
+                    .setSystemPasscode(relayPasscode)
+                    .setSystemHeartbeatSendInterval(10000)
+                    .setSystemHeartbeatReceiveInterval(10000)
+                    // /user/** của user đang ở node khác được chuyển tiếp qua broker
+                    .setUserDestinationBroadcast("/topic/unresolved-user")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+            return;
+        }
         registry.enableSimpleBroker("/topic", "/queue")
                 .setTaskScheduler(heartBeatScheduler())
                 .setHeartbeatValue(new long[]{10000, 10000});
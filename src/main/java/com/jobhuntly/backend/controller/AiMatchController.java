@@ -1,13 +1,23 @@
 package com.jobhuntly.backend.controller;
 
+import com.jobhuntly.backend.dto.ai.BatchMatchItem;
 import com.jobhuntly.backend.dto.ai.MatchRequest;
 import com.jobhuntly.backend.dto.ai.MatchResponse;
 import com.jobhuntly.backend.security.SecurityUtils;
 import com.jobhuntly.backend.service.AiMatchService;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 
 @RestController
 @RequestMapping("${backend.prefix}/ai")
@@ -19,29 +29,51 @@ public class AiMatchController {
         this.aiMatchService = aiMatchService;
     }
 
+    // Trả Mono -> request chạy async, thread Tomcat được nhả trong lúc chờ Gemini
     @PostMapping("/match")
-    public ResponseEntity<MatchResponse> match(@RequestBody MatchRequest req) {
+    public Mono<ResponseEntity<MatchResponse>> match(@RequestBody MatchRequest req) {
         Long jobId = req.getJobId();
         Long userId = SecurityUtils.getCurrentUserId();
-        MatchResponse resp = aiMatchService.matchCandidateToJob(
+        return aiMatchService.matchCandidateToJob(
                 userId,
                 jobId,
                 req.getResumeFileId(),
                 req.getResumeText(),
                 Boolean.TRUE.equals(req.getUseFileApi())
-        );
-        return ResponseEntity.ok(resp);
+        ).map(ResponseEntity::ok);
     }
 
     @PostMapping(value = "/match/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<MatchResponse> matchUpload(
+    public Mono<ResponseEntity<MatchResponse>> matchUpload(
             @RequestParam("jobId") Long jobId,
             @RequestPart("file") MultipartFile file,
             @RequestParam(value = "useFileApi", required = false, defaultValue = "false") boolean useFileApi
     ) throws Exception {
         Long userId = SecurityUtils.getCurrentUserId();
         byte[] bytes = file.getBytes();
-        MatchResponse resp = aiMatchService.matchByUploadedFile(userId, jobId, bytes, useFileApi);
-        return ResponseEntity.ok(resp);
+        return aiMatchService.matchByUploadedFile(userId, jobId, bytes, useFileApi)
+                .map(ResponseEntity::ok);
+    }
+
+    /**
+     * Recruiter chấm toàn bộ ứng viên của 1 job qua SSE:
+     * event "result" cho từng application khi xong, cuối cùng event "ranking" là danh sách đã sắp theo điểm.
+     */
+    @GetMapping(value = "/match/job/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('RECRUITER','ADMIN')")
+    public Flux<ServerSentEvent<Object>> matchAllForJob(@PathVariable Long jobId, Authentication authentication) {
+        Long userId = SecurityUtils.getCurrentUserId();
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+
+        List<BatchMatchItem> done = new ArrayList<>();
+        return aiMatchService.matchApplicationsOfJob(userId, admin, jobId)
+                .doOnNext(done::add)
+                .map(item -> ServerSentEvent.<Object>builder(item).event("result").build())
+                .concatWith(Mono.fromSupplier(() -> {
+                    List<BatchMatchItem> ranked = new ArrayList<>(done);
+                    ranked.sort(Comparator.comparingInt(BatchMatchItem::getScore).reversed());
+                    return ServerSentEvent.<Object>builder(ranked).event("ranking").build();
+                }));
     }
-}
\ No newline at end of file
+}
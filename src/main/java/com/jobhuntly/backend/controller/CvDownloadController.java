@@ -1,42 +1,304 @@
 package com.jobhuntly.backend.controller;
 
+import com.jobhuntly.backend.entity.Application;
 import com.jobhuntly.backend.repository.ApplicationRepository;
-import lombok.RequiredArgsConstructor;
+import com.jobhuntly.backend.repository.JobRepository;
+import com.jobhuntly.backend.security.SecurityUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.*;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
+
+@Slf4j
 @RestController
 @RequestMapping("${backend.prefix}/applications")
-@RequiredArgsConstructor
 public class CvDownloadController {
+    // header điều kiện/range của client được chuyển tiếp nguyên cho Cloudinary
+    private static final List<String> FORWARDED_REQUEST_HEADERS = List.of(
+            HttpHeaders.RANGE, HttpHeaders.IF_RANGE, HttpHeaders.IF_NONE_MATCH, HttpHeaders.IF_MODIFIED_SINCE);
+    // header của Cloudinary được trả lại cho client
+    private static final List<String> FORWARDED_RESPONSE_HEADERS = List.of(
+            HttpHeaders.CONTENT_LENGTH, HttpHeaders.CONTENT_RANGE, HttpHeaders.ACCEPT_RANGES,
+            HttpHeaders.ETAG, HttpHeaders.LAST_MODIFIED);
+    // thời gian dành cho README + đóng zip sau khi hết max-duration
+    private static final long ZIP_FINISH_MARGIN_MS = 10_000;
+
     private final ApplicationRepository applicationRepo;
-    private final WebClient webClient = WebClient.builder().build();
+    private final JobRepository jobRepo;
+    private final WebClient webClient;
+    private final Duration transferTimeout;
+
+    @Value("${app.cv-zip.page-size:100}")
+    private int zipPageSize;
+    @Value("${app.cv-zip.concurrency:4}")
+    private int zipConcurrency;
+    @Value("${app.cv-zip.max-bytes:524288000}")
+    private long zipMaxBytes;
+    @Value("${app.cv-zip.max-duration-ms:100000}")
+    private long zipMaxDurationMs;
+    @Value("${app.cv-zip.max-file-bytes:20971520}")
+    private long zipMaxFileBytes;
+    // StreamingResponseBody chạy dưới async timeout của MVC: hết giờ là response bị cắt giữa chừng -> zip hỏng
+    @Value("${spring.mvc.async.request-timeout:30s}")
+    private Duration asyncRequestTimeout;
+
+    public CvDownloadController(ApplicationRepository applicationRepo,
+                                JobRepository jobRepo,
+                                @Qualifier("cvWebClient") WebClient webClient,
+                                @Value("${app.cv-download.transfer-timeout-ms:120000}") long transferTimeoutMs) {
+        this.applicationRepo = applicationRepo;
+        this.jobRepo = jobRepo;
+        this.webClient = webClient;
+        this.transferTimeout = Duration.ofMillis(transferTimeoutMs);
+    }
 
+    @PostConstruct
+    void checkZipDuration() {
+        long limit = asyncRequestTimeout.toMillis() - ZIP_FINISH_MARGIN_MS;
+        if (zipMaxDurationMs > limit) {
+            log.warn("app.cv-zip.max-duration-ms={} exceeds spring.mvc.async.request-timeout={} minus margin, using {} ms",
+                    zipMaxDurationMs, asyncRequestTimeout, limit);
+            zipMaxDurationMs = Math.max(limit, 0);
+        }
+    }
+
+    /**
+     * Proxy stream: bytes từ Cloudinary được ghi ra response theo từng buffer khi tới, không giữ cả file trong heap.
+     * Hỗ trợ Range (206/416) và ETag/Last-Modified (304) bằng cách chuyển tiếp header cho Cloudinary.
+     */
     @GetMapping("/{id}/cv/download")
-    public ResponseEntity<byte[]> download(@PathVariable Long id) {
-        var app = applicationRepo.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Application not found"));
+    public Mono<ResponseEntity<StreamingResponseBody>> download(@PathVariable Long id,
+                                                                @RequestHeader HttpHeaders requestHeaders) {
+        return Mono.fromCallable(() -> applicationRepo.findById(id)
+                        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Application not found")))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(app -> {
+                    String url = app.getCv();
+                    if (url == null || url.isBlank()) {
+                        return Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND, "CV not uploaded"));
+                    }
+                    return webClient.get()
+                            .uri(URI.create(url))
+                            .headers(h -> FORWARDED_REQUEST_HEADERS.forEach(name -> {
+                                List<String> values = requestHeaders.get(name);
+                                if (values != null) h.put(name, values);
+                            }))
+                            .retrieve()
+                            // 304/416 là kết quả hợp lệ, trả lại nguyên cho client
+                            .onStatus(s -> s.value() == 304 || s.value() == 416, r -> Mono.empty())
+                            .onStatus(s -> s.value() == 404, r -> Mono.error(
+                                    new ResponseStatusException(HttpStatus.NOT_FOUND, "CV file not found")))
+                            .onStatus(HttpStatusCode::isError, r -> Mono.error(
+                                    new ResponseStatusException(HttpStatus.BAD_GATEWAY, "CV storage unavailable")))
+                            .toEntityFlux(DataBuffer.class)
+                            .map(upstream -> toResponse(id, upstream));
+                });
+    }
 
-        String url = app.getCv();
-        if (url == null || url.isBlank()) {
-            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "CV not uploaded");
+    private ResponseEntity<StreamingResponseBody> toResponse(Long id, ResponseEntity<Flux<DataBuffer>> upstream) {
+        HttpHeaders headers = new HttpHeaders();
+        FORWARDED_RESPONSE_HEADERS.forEach(name -> {
+            List<String> values = upstream.getHeaders().get(name);
+            if (values != null) headers.put(name, values);
+        });
+        headers.setContentType(MediaType.APPLICATION_PDF);
+        headers.set(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"cv-" + id + ".pdf\"");
+
+        Flux<DataBuffer> body = upstream.getBody();
+        int status = upstream.getStatusCode().value();
+        if (body == null || status == 304 || status == 416) {
+            if (body != null) body.subscribe(DataBufferUtils::release);
+            return ResponseEntity.status(upstream.getStatusCode()).headers(headers).build();
         }
 
-        RestTemplate restTemplate = new RestTemplate();
-        byte[] fileBytes = restTemplate.getForObject(url, byte[].class);
+        // ghi từng buffer ra output stream của servlet rồi trả buffer về pool ngay
+        StreamingResponseBody stream = out -> DataBufferUtils.write(body, out)
+                .doOnNext(DataBufferUtils::release)
+                .then()
+                .block(transferTimeout);
+        return ResponseEntity.status(upstream.getStatusCode()).headers(headers).body(stream);
+    }
+
+    /**
+     * Tải toàn bộ CV của 1 job thành 1 file zip, ghi thẳng ra response.
+     * Mỗi trang application: tải song song tối đa {@code app.cv-zip.concurrency} CV vào file tạm,
+     * rồi lần lượt chép vào zip và xoá ngay. Vượt {@code max-bytes} hoặc {@code max-duration-ms} thì dừng,
+     * zip vẫn hợp lệ và có thêm README.txt ghi lý do + các CV lỗi.
+     */
+    @GetMapping(value = "/by-job/{jobId}/cv.zip", produces = "application/zip")
+    @PreAuthorize("hasAnyRole('RECRUITER','ADMIN')")
+    public ResponseEntity<StreamingResponseBody> downloadZip(@PathVariable Long jobId, Authentication authentication) {
+        Long ownerId = jobRepo.findOwnerUserId(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Job not found"));
+        boolean admin = authentication.getAuthorities().stream()
+                .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
+        if (!admin && !Objects.equals(ownerId, SecurityUtils.getCurrentUserId())) {
+            throw new AccessDeniedException("Not allowed to export CVs of this job");
+        }
 
-        String fileName = "cv-" + id + ".pdf";
+        StreamingResponseBody body = out -> writeZip(jobId, out);
         return ResponseEntity.ok()
-                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-                .contentType(MediaType.APPLICATION_PDF)
-                .body(fileBytes);
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"job-" + jobId + "-cv.zip\"")
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .body(body);
+    }
+
+    private record Spooled(Application app, Path file, String error) {}
+
+    private void writeZip(Long jobId, OutputStream out) throws IOException {
+        long deadline = System.currentTimeMillis() + zipMaxDurationMs;
+        long written = 0;
+        String stopReason = null;
+        List<String> failures = new ArrayList<>();
+        Set<Path> pending = ConcurrentHashMap.newKeySet();
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        zip.setLevel(Deflater.BEST_SPEED); // PDF đã nén sẵn, chỉ tốn CPU
+        try {
+            int pageNo = 0;
+            Page<Application> page;
+            do {
+                page = applicationRepo.findAllByJob_Id(jobId, PageRequest.of(pageNo++, zipPageSize, Sort.by("id")));
+                List<Application> withCv = page.getContent().stream()
+                        .filter(a -> a.getCv() != null && !a.getCv().isBlank())
+                        .toList();
+                int seen = 0;
+                // flatMapSequential: tải song song nhưng trả theo thứ tự, tối đa `concurrency` file tạm chờ ghi;
+                // take(remaining): không chờ 1 lượt tải chậm vượt quá deadline
+                try (Stream<Spooled> files = Flux.fromIterable(withCv)
+                        .flatMapSequential(a -> spool(a, pending), zipConcurrency, 1)
+                        .take(Duration.ofMillis(Math.max(deadline - System.currentTimeMillis(), 0)))
+                        .toStream(1)) {
+                    for (Spooled f : (Iterable<Spooled>) files::iterator) {
+                        seen++;
+                        if (System.currentTimeMillis() > deadline) {
+                            stopReason = "time limit reached";
+                        } else if (f.error() != null) {
+                            failures.add(entryName(f.app()) + ": " + f.error());
+                        } else if (written + Files.size(f.file()) > zipMaxBytes) {
+                            stopReason = "size limit reached";
+                        } else {
+                            zip.putNextEntry(new ZipEntry(entryName(f.app())));
+                            written += Files.copy(f.file(), zip);
+                            zip.closeEntry();
+                        }
+                        discard(f, pending);
+                        // thoát vòng lặp -> đóng stream, huỷ các lượt tải đang chạy thay vì chờ tải xong rồi bỏ
+                        if (stopReason != null) break;
+                    }
+                }
+                if (stopReason == null && seen < withCv.size()) stopReason = "time limit reached";
+            } while (stopReason == null && page.hasNext());
+
+            if (stopReason != null || !failures.isEmpty()) {
+                zip.putNextEntry(new ZipEntry("README.txt"));
+                StringBuilder sb = new StringBuilder();
+                if (stopReason != null) sb.append("Export stopped early: ").append(stopReason).append("\n");
+                if (!failures.isEmpty()) sb.append("Failed downloads:\n");
+                failures.forEach(f -> sb.append("- ").append(f).append("\n"));
+                zip.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+                zip.closeEntry();
+            }
+            zip.finish();
+        } finally {
+            pending.forEach(CvDownloadController::deleteQuietly);
+            if (stopReason != null) log.info("CV zip for job {} stopped: {}", jobId, stopReason);
+        }
+    }
+
+    // Tải 1 CV vào file tạm; lỗi không làm hỏng cả zip mà được ghi vào README
+    private Mono<Spooled> spool(Application app, Set<Path> pending) {
+        return Mono.fromCallable(() -> {
+                    Path tmp = Files.createTempFile("cv-zip-", ".pdf");
+                    pending.add(tmp);
+                    return tmp;
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(tmp -> download(app.getCv(), tmp)
+                        .timeout(transferTimeout)
+                        .thenReturn(new Spooled(app, tmp, null)))
+                .onErrorResume(e -> Mono.just(new Spooled(app, null, e.getClass().getSimpleName())));
+    }
+
+    /**
+     * Ghi 1 file vào {@code tmp}, tối đa {@code max-file-bytes}: Content-Length vượt giới hạn thì bỏ luôn,
+     * không có / sai Content-Length thì đếm byte và cắt stream ngay khi vượt.
+     */
+    private Mono<Void> download(String url, Path tmp) {
+        return webClient.get().uri(URI.create(url)).exchangeToMono(resp -> {
+            if (resp.statusCode().isError()) return resp.createError();
+            if (resp.headers().contentLength().orElse(-1) > zipMaxFileBytes) {
+                return Mono.error(new CvTooLargeException());
+            }
+            Flux<DataBuffer> body = DataBufferUtils.takeUntilByteCount(resp.bodyToFlux(DataBuffer.class), zipMaxFileBytes + 1);
+            return DataBufferUtils.write(body, tmp)
+                    .then(Mono.fromCallable(() -> Files.size(tmp)))
+                    .flatMap(size -> size > zipMaxFileBytes
+                            ? Mono.<Void>error(new CvTooLargeException())
+                            : Mono.<Void>empty());
+        });
+    }
+
+    private static class CvTooLargeException extends IOException {
+        CvTooLargeException() {
+            super("CV file exceeds size limit");
+        }
+    }
+
+    private static void discard(Spooled f, Set<Path> pending) {
+        if (f.file() == null) return;
+        pending.remove(f.file());
+        deleteQuietly(f.file());
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignore) {
+            // file tạm, OS sẽ dọn
+        }
+    }
+
+    private static String entryName(Application app) {
+        String name = app.getCandidateName() == null ? "" : app.getCandidateName().replaceAll("[^\\p{L}\\p{N}._-]+", "_");
+        return app.getId() + (name.isEmpty() ? "" : "-" + name) + ".pdf";
     }
 }
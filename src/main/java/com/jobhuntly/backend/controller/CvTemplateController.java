@@ -3,6 +3,7 @@ package com.jobhuntly.backend.controller;
 import java.io.IOException;
 import java.util.List;
 
+import org.springframework.core.io.Resource;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -69,15 +70,15 @@ public class CvTemplateController {
 
     // Download CV as PDF
     @GetMapping("/{templateId}/download")
-    public ResponseEntity<byte[]> downloadTemplate(@PathVariable Long templateId) {
+    public ResponseEntity<Resource> downloadTemplate(@PathVariable Long templateId) {
         Long userId = SecurityUtils.getCurrentUserId();
         var combinedProfile = profileService.getCombinedProfile(userId);
 
-        byte[] pdfBytes = cvTemplateService.renderPdf(templateId, combinedProfile);
+        Resource pdf = cvTemplateService.renderPdf(templateId, combinedProfile);
 
         return ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_PDF)
                 .header("Content-Disposition", "attachment; filename=\"cv.pdf\"")
-                .body(pdfBytes);
+                .body(pdf);
     }
 }
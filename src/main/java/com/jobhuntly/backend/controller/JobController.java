@@ -4,6 +4,7 @@ import com.jobhuntly.backend.dto.auth.AppPrincipal;
 import com.jobhuntly.backend.dto.request.JobFilterRequest;
 import com.jobhuntly.backend.dto.request.JobPatchRequest;
 import com.jobhuntly.backend.dto.request.JobRequest;
+import com.jobhuntly.backend.dto.response.CursorPage;
 import com.jobhuntly.backend.dto.response.JobItemWithStatus;
 import com.jobhuntly.backend.dto.response.JobResponse;
 import com.jobhuntly.backend.service.JobService;
@@ -14,6 +15,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.data.web.SortDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
@@ -64,6 +66,18 @@ public class JobController {
         return jobService.searchLite(request, pageable);
     }
 
+    // Keyset mode: cursor opaque thay cho page number, latency không tăng theo độ sâu
+    @PostMapping("/search-lite/keyset")
+    public CursorPage<JobResponse> searchLiteKeyset(
+            @RequestBody JobFilterRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @SortDefault(sort = "id", direction = Sort.Direction.DESC) Sort sort
+    ) {
+        return jobService.searchLiteKeyset(request, sort, cursor, size, withTotal);
+    }
+
     @PostMapping("/company/{companyId}/search")
     public Page<JobResponse> searchByCompany(
             @PathVariable Long companyId,
@@ -92,4 +106,17 @@ public class JobController {
         return ResponseEntity.ok(jobService.searchLiteWithStatus(request, pageable, uid));
     }
 
+    @PostMapping("/search-lite-with-status/keyset")
+    public ResponseEntity<CursorPage<JobItemWithStatus>> searchLiteKeysetWithStatus(
+            @AuthenticationPrincipal AppPrincipal me,
+            @RequestBody JobFilterRequest request,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "false") boolean withTotal,
+            @SortDefault(sort = "id", direction = Sort.Direction.DESC) Sort sort
+    ) {
+        Long uid = (me == null) ? null : me.id();
+        return ResponseEntity.ok(jobService.searchLiteKeysetWithStatus(request, sort, cursor, size, withTotal, uid));
+    }
+
 }
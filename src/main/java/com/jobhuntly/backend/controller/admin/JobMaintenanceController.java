@@ -1,12 +1,14 @@
 package com.jobhuntly.backend.controller.admin;
 
 import com.jobhuntly.backend.repository.JobRepository;
+import com.jobhuntly.backend.service.search.JobKeywordIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,13 +18,24 @@ import java.util.Map;
 public class JobMaintenanceController {
 
     private final JobRepository jobRepository;
+    private final JobKeywordIndex jobKeywordIndex;
 
     @PostMapping("/deactivate-expired")
     public ResponseEntity<Map<String, Object>> deactivateExpiredJobs() {
         int updated = jobRepository.markExpiredJobsInactive();
+        jobKeywordIndex.evictExpired(LocalDate.now());
         Map<String, Object> body = new HashMap<>();
         body.put("updated", updated);
         body.put("message", "Expired jobs have been set to inactive");
         return ResponseEntity.ok(body);
     }
+
+    @PostMapping("/rebuild-keyword-index")
+    public ResponseEntity<Map<String, Object>> rebuildKeywordIndex() {
+        jobKeywordIndex.rebuild();
+        Map<String, Object> body = new HashMap<>();
+        body.put("ready", jobKeywordIndex.isReady());
+        body.put("message", "Job keyword index has been rebuilt");
+        return ResponseEntity.ok(body);
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,18 @@
+package com.jobhuntly.backend.dto.ai;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchMatchItem {
+    private Integer applicationId;
+    private Long candidateId;
+    private String candidateName;
+    private int score;
+    private List<String> reasons;
+    private boolean cached;      // true nếu lấy lại từ AI_MATCH, không gọi Gemini
+}
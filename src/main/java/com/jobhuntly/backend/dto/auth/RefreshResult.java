@@ -1,10 +1,9 @@
 package com.jobhuntly.backend.dto.auth;
 
-import com.jobhuntly.backend.entity.User;
 import com.jobhuntly.backend.entity.UserSession;
 
 public record RefreshResult(
-        User user,
+        Long userId, // không load User: access token mint từ PrincipalSnapshotCache
         String newRefreshToken, // raw
         UserSession newSession
 ) {}
@@ -0,0 +1,18 @@
+package com.jobhuntly.backend.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPage<T> {
+    private List<T> content;
+    private String nextCursor;     // null khi hết dữ liệu
+    private boolean hasNext;
+    private int size;
+    private Long totalElements;    // chỉ có khi client yêu cầu withTotal ở trang đầu
+}
@@ -2,6 +2,7 @@ package com.jobhuntly.backend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -10,6 +11,7 @@ import java.util.Set;
 
 @Entity
 @Table(name = "categories")
+@BatchSize(size = 50)
 @Getter
 @Setter
 @NoArgsConstructor
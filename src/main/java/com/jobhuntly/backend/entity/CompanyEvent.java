@@ -0,0 +1,49 @@
+package com.jobhuntly.backend.entity;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Sự kiện cấp company (vd NEW_JOB) lưu 1 lần; follower đọc qua feed lúc truy vấn
+@Entity
+@Table(name = "company_events")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CompanyEvent {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Column(name = "company_id", nullable = false)
+    private Long companyId;
+
+    @Column(name = "job_id")
+    private Long jobId;
+
+    @Column(length = 50, nullable = false)
+    private String type;
+
+    @Column(length = 200, nullable = false)
+    private String title;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String message;
+
+    private String link;
+
+    @Column(name = "created_at")
+    private Instant createdAt;
+
+    @PrePersist
+    public void prePersist() {
+        if (createdAt == null) {
+            createdAt = Instant.now();
+        }
+    }
+}
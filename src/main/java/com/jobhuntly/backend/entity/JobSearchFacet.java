@@ -0,0 +1,41 @@
+package com.jobhuntly.backend.entity;
+
+import com.jobhuntly.backend.entity.enums.FacetType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Projection phi chuẩn hoá phục vụ search: mỗi dòng = (job, loại facet, id facet).
+ * Được ghi lại mỗi khi job create/patch, search chỉ lookup theo id có index.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "job_search_facets")
+public class JobSearchFacet {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "facet_row_id")
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "facet_type", nullable = false, length = 20)
+    private FacetType facetType;
+
+    @Column(name = "facet_id", nullable = false)
+    private Long facetId;
+
+    public JobSearchFacet(Long jobId, FacetType facetType, Long facetId) {
+        this.jobId = jobId;
+        this.facetType = facetType;
+        this.facetId = facetId;
+    }
+}
@@ -0,0 +1,101 @@
+package com.jobhuntly.backend.entity;
+
+import com.jobhuntly.backend.entity.enums.MailChannel;
+import com.jobhuntly.backend.entity.enums.MailOutboxStatus;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Thư chờ gửi, ghi cùng transaction nghiệp vụ; {@code MailOutboxService} gửi nền rồi cập nhật trạng thái.
+ * Message-ID được sinh lúc ghi để bên gọi lưu/threading được ngay.
+ */
+@Entity
+@Table(
+        name = "mail_outbox",
+        indexes = {
+                @Index(name = "idx_mail_outbox_status_next", columnList = "status, next_attempt_at")
+        }
+)
+@Getter @Setter
+@NoArgsConstructor @AllArgsConstructor
+@Builder
+public class MailOutbox {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "channel", nullable = false, length = 20)
+    private MailChannel channel;
+
+    @Column(name = "from_email", nullable = false, length = 255)
+    private String fromEmail;
+
+    @Column(name = "from_name", length = 255)
+    private String fromName;
+
+    @Column(name = "to_email", nullable = false, length = 255)
+    private String toEmail;
+
+    // nhiều địa chỉ, phân cách bằng dấu phẩy
+    @Column(name = "cc", length = 1000)
+    private String cc;
+
+    @Column(name = "bcc", length = 1000)
+    private String bcc;
+
+    @Column(name = "subject", nullable = false, length = 500)
+    private String subject;
+
+    @Lob
+    @Column(name = "body_text", columnDefinition = "LONGTEXT")
+    private String bodyText;
+
+    @Lob
+    @Column(name = "body_html", columnDefinition = "LONGTEXT")
+    private String bodyHtml;
+
+    @Column(name = "message_id", nullable = false, length = 255)
+    private String messageId;
+
+    @Column(name = "in_reply_to", length = 255)
+    private String inReplyTo;
+
+    @Column(name = "references_header", length = 2000)
+    private String references;
+
+    // 1 file đính kèm (hiện chỉ dùng cho invite.ics)
+    @Column(name = "attachment_name", length = 255)
+    private String attachmentName;
+
+    @Column(name = "attachment_type", length = 255)
+    private String attachmentType;
+
+    @Lob
+    @Column(name = "attachment_data", columnDefinition = "MEDIUMBLOB")
+    private byte[] attachmentData;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private MailOutboxStatus status;
+
+    @Column(name = "attempts", nullable = false)
+    private Integer attempts;
+
+    /** PENDING: thời điểm được gửi (lại); SENDING: hết hạn lease, quá hạn thì trả về PENDING */
+    @Column(name = "next_attempt_at", nullable = false)
+    private Instant nextAttemptAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "sent_at")
+    private Instant sentAt;
+}
@@ -0,0 +1,32 @@
+package com.jobhuntly.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// High-water mark UID đã nhận của 1 folder IMAP; uidValidity đổi thì UID cũ không còn nghĩa.
+// seeding = true tới khi lượt quét UNSEEN đầu tiên chạy trọn, trong lúc đó chưa chuyển sang đọc theo UID
+@Entity
+@Table(name = "mail_sync_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class MailSyncState {
+    @Id
+    @Column(name = "folder_key", length = 255)
+    private String folderKey;
+
+    @Column(name = "uid_validity", nullable = false)
+    private Long uidValidity;
+
+    @Column(name = "last_uid", nullable = false)
+    private Long lastUid;
+
+    @Column(name = "seeding", nullable = false)
+    private boolean seeding;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
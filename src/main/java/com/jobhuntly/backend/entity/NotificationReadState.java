@@ -0,0 +1,23 @@
+package com.jobhuntly.backend.entity;
+
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+// Watermark đã đọc của user cho company events: event có created_at <= companyReadAt coi như đã đọc
+@Entity
+@Table(name = "notification_read_state")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class NotificationReadState {
+    @Id
+    @Column(name = "user_id")
+    private Long userId;
+
+    @Column(name = "company_read_at")
+    private Instant companyReadAt;
+}
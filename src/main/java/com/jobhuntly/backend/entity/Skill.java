@@ -2,12 +2,14 @@ package com.jobhuntly.backend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.BatchSize;
 
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "skills")
+@BatchSize(size = 50)
 @Getter
 @Setter
 @NoArgsConstructor
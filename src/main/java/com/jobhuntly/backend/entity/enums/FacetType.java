@@ -0,0 +1,10 @@
+package com.jobhuntly.backend.entity.enums;
+
+public enum FacetType {
+    CATEGORY,
+    SKILL,
+    LEVEL,
+    WORK_TYPE,
+    WARD,
+    CITY
+}
@@ -0,0 +1,6 @@
+package com.jobhuntly.backend.entity.enums;
+
+// SMTP dùng để gửi: DEFAULT = spring.mail (no-reply), SUPPORT = mail.gmail (hộp thư hỗ trợ, ticket)
+public enum MailChannel {
+    DEFAULT, SUPPORT
+}
@@ -0,0 +1,5 @@
+package com.jobhuntly.backend.entity.enums;
+
+public enum MailOutboxStatus {
+    PENDING, SENDING, SENT, DEAD
+}
@@ -2,7 +2,10 @@ package com.jobhuntly.backend.repository;
 
 import com.jobhuntly.backend.entity.Category;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -20,4 +23,16 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     List<Category> findAllByParent_NameIgnoreCase(String parentName);
 
     List<Category> findAllByParent_Id(Long parentId);
+
+    // so sánh trong DB theo collation của cột (vd. không phân biệt dấu), không chuẩn hoá lại ở Java
+    @Query("select c.id from Category c where lower(c.name) = :nameLc")
+    List<Long> findIdsByNameLc(@Param("nameLc") String nameLc);
+
+    // 1 query cho cả lô tên: trả (id, name) của các dòng khớp theo collation của cột
+    @Query("select c.id, c.name from Category c where lower(c.name) in :namesLc")
+    List<Object[]> findIdAndNameByNameLcIn(@Param("namesLc") Collection<String> namesLc);
+
+    // [tên category, tên category cha]
+    @Query("select c.name, p.name from Category c join c.parent p where lower(c.name) in :namesLc")
+    List<Object[]> findNameAndParentNameByNameLcIn(@Param("namesLc") Collection<String> namesLc);
 }
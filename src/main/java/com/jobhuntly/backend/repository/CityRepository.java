@@ -2,10 +2,16 @@ package com.jobhuntly.backend.repository;
 
 import com.jobhuntly.backend.entity.City;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
 
 public interface CityRepository extends JpaRepository<City, Long> {
     List<City> findByNameContainingIgnoreCase(String namePart);
+
+    // so sánh trong DB theo collation của cột (vd. không phân biệt dấu), không chuẩn hoá lại ở Java
+    @Query("select c.id from City c where lower(c.name) = :nameLc")
+    List<Long> findIdsByNameLc(@Param("nameLc") String nameLc);
 }
@@ -0,0 +1,15 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.CompanyEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+
+public interface CompanyEventRepository extends JpaRepository<CompanyEvent, Long> {
+
+    @Query("select max(e.createdAt) from CompanyEvent e where e.eventId in :ids")
+    Instant findLatestCreatedAt(@Param("ids") Collection<Long> ids);
+}
@@ -5,6 +5,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -22,4 +23,13 @@ public interface FollowRepository extends JpaRepository<Follow, Long> {
 
     @Query("select f.userId from Follow f where f.companyId = :companyId")
     List<Long> findUserIdsByCompanyId(Long companyId);
+
+    @Query("select f.companyId from Follow f where f.userId = :userId")
+    List<Long> findCompanyIdsByUserId(@Param("userId") Long userId);
+
+    // Duyệt follower theo lô (keyset trên follow_id) cho fan-out, tránh nạp toàn bộ 1 lần
+    @Query("select f from Follow f where f.companyId = :companyId and f.followId > :afterId order by f.followId asc")
+    List<Follow> findFollowersAfter(@Param("companyId") Long companyId,
+                                    @Param("afterId") Long afterId,
+                                    Pageable pageable);
 }
@@ -0,0 +1,19 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.enums.FacetType;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bộ lọc facet đã được resolve từ tên sang id (1 lần / request).
+ * Mỗi group ứng với 1 tên FE gửi lên; group rỗng = tên không tồn tại.
+ */
+public record JobFacetFilter(List<Criterion> criteria) {
+
+    public record Criterion(FacetType type, List<Set<Long>> groups, boolean matchAll) {}
+
+    public boolean isEmpty() {
+        return criteria == null || criteria.isEmpty();
+    }
+}
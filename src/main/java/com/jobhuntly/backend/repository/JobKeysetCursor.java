@@ -0,0 +1,60 @@
+package com.jobhuntly.backend.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Vị trí keyset (seek) trong kết quả search: (sort key, job_id).
+ * Được encode thành chuỗi opaque (base64url) để FE chỉ việc gửi lại.
+ */
+public record JobKeysetCursor(SortKey sortKey, boolean asc, LocalDate datePost, Long id) {
+
+    public enum SortKey {
+        ID("id"),
+        DATE_POST("datePost");
+
+        private final String property;
+
+        SortKey(String property) {
+            this.property = property;
+        }
+
+        public String property() {
+            return property;
+        }
+
+        public static SortKey fromProperty(String property) {
+            for (SortKey k : values()) {
+                if (k.property.equals(property)) return k;
+            }
+            throw new IllegalArgumentException("Unsupported keyset sort: " + property);
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey.name()
+                + "|" + (asc ? "asc" : "desc")
+                + "|" + (datePost == null ? "" : datePost.toString())
+                + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static JobKeysetCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 4) throw new IllegalArgumentException("Invalid cursor");
+
+            SortKey key = SortKey.valueOf(parts[0]);
+            boolean asc = "asc".equals(parts[1].toLowerCase(Locale.ROOT));
+            LocalDate date = parts[2].isEmpty() ? null : LocalDate.parse(parts[2]);
+            Long id = Long.valueOf(parts[3]);
+            return new JobKeysetCursor(key, asc, date, id);
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+}
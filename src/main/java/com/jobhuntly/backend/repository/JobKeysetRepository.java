@@ -0,0 +1,21 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.Job;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+public interface JobKeysetRepository {
+
+    /**
+     * Phase 1 của keyset pagination: chỉ SELECT (job_id, sort key) theo spec,
+     * seek sau {@code after}, không OFFSET và không COUNT.
+     * Mỗi phần tử trả về chính là cursor của dòng đó.
+     */
+    List<JobKeysetCursor> findKeysetIds(@Nullable Specification<Job> spec,
+                                        JobKeysetCursor.SortKey sortKey,
+                                        boolean asc,
+                                        @Nullable JobKeysetCursor after,
+                                        int limit);
+}
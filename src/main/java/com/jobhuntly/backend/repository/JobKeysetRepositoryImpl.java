@@ -0,0 +1,89 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.Job;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.*;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+class JobKeysetRepositoryImpl implements JobKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    public List<JobKeysetCursor> findKeysetIds(Specification<Job> spec,
+                                               JobKeysetCursor.SortKey sortKey,
+                                               boolean asc,
+                                               JobKeysetCursor after,
+                                               int limit) {
+        CriteriaBuilder cb = em.getCriteriaBuilder();
+        CriteriaQuery<Tuple> cq = cb.createTupleQuery();
+        Root<Job> root = cq.from(Job.class);
+        Path<Long> id = root.get("id");
+        Path<LocalDate> datePost = root.get("datePost");
+
+        List<Predicate> where = new ArrayList<>();
+        if (spec != null) {
+            Predicate p = spec.toPredicate(root, cq, cb);
+            if (p != null) where.add(p);
+        }
+        if (after != null) where.add(seekAfter(cb, sortKey, asc, id, datePost, after));
+
+        cq.multiselect(id, datePost).where(where.toArray(Predicate[]::new));
+        if (sortKey == JobKeysetCursor.SortKey.DATE_POST) {
+            cq.orderBy(order(cb, datePost, asc), order(cb, id, asc));
+        } else {
+            cq.orderBy(order(cb, id, asc));
+        }
+
+        return em.createQuery(cq)
+                .setMaxResults(limit)
+                .getResultList()
+                .stream()
+                .map(t -> new JobKeysetCursor(
+                        sortKey,
+                        asc,
+                        sortKey == JobKeysetCursor.SortKey.DATE_POST ? t.get(1, LocalDate.class) : null,
+                        t.get(0, Long.class)))
+                .toList();
+    }
+
+    private static Order order(CriteriaBuilder cb, Expression<?> e, boolean asc) {
+        return asc ? cb.asc(e) : cb.desc(e);
+    }
+
+    // MySQL: NULL đứng đầu khi ASC, đứng cuối khi DESC -> điều kiện seek phải khớp thứ tự đó
+    private static Predicate seekAfter(CriteriaBuilder cb,
+                                       JobKeysetCursor.SortKey sortKey,
+                                       boolean asc,
+                                       Path<Long> id,
+                                       Path<LocalDate> datePost,
+                                       JobKeysetCursor after) {
+        Long lastId = after.id();
+        Predicate idAfter = asc ? cb.greaterThan(id, lastId) : cb.lessThan(id, lastId);
+        if (sortKey == JobKeysetCursor.SortKey.ID) return idAfter;
+
+        LocalDate last = after.datePost();
+        if (asc) {
+            if (last == null) {
+                return cb.or(cb.and(cb.isNull(datePost), idAfter), cb.isNotNull(datePost));
+            }
+            return cb.or(
+                    cb.greaterThan(datePost, last),
+                    cb.and(cb.equal(datePost, last), idAfter));
+        }
+        if (last == null) {
+            return cb.and(cb.isNull(datePost), idAfter);
+        }
+        return cb.or(
+                cb.lessThan(datePost, last),
+                cb.and(cb.equal(datePost, last), idAfter),
+                cb.isNull(datePost));
+    }
+}
@@ -13,7 +13,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
-public interface JobRepository extends JpaRepository<Job, Long>, JpaSpecificationExecutor<Job> {
+public interface JobRepository extends JpaRepository<Job, Long>, JpaSpecificationExecutor<Job>, JobKeysetRepository {
     @EntityGraph(attributePaths = {
             "company", "categories", "skills", "levels", "workTypes",
             "wards", "wards.city"
@@ -37,6 +37,10 @@ public interface JobRepository extends JpaRepository<Job, Long>, JpaSpecificatio
 
     Page<Job> findByCompany_Id(Long companyId, Pageable pageable);
 
+    // user sở hữu company của job (recruiter)
+    @Query("select j.company.user.id from Job j where j.id = :jobId")
+    Optional<Long> findOwnerUserId(@Param("jobId") Long jobId);
+
     default Optional<Job> findByIdWithAssociations(Long id) {
         return findById(id);
     }
@@ -0,0 +1,14 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.JobSearchFacet;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface JobSearchFacetRepository extends JpaRepository<JobSearchFacet, Long> {
+
+    @Modifying(flushAutomatically = true)
+    @Query("delete from JobSearchFacet f where f.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") Long jobId);
+}
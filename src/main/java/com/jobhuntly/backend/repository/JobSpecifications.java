@@ -2,8 +2,11 @@ package com.jobhuntly.backend.repository;
 
 import com.jobhuntly.backend.dto.request.JobFilterRequest;
 import com.jobhuntly.backend.entity.Job;
+import com.jobhuntly.backend.entity.JobSearchFacet;
+import com.jobhuntly.backend.entity.enums.FacetType;
 import jakarta.persistence.criteria.*;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
 
 import java.time.LocalDate;
 import java.util.*;
@@ -13,7 +16,26 @@ public final class JobSpecifications {
 
     private JobSpecifications() {}
     public static Specification<Job> build(JobFilterRequest r) {
+        return build(r, null);
+    }
+
+    /**
+     * {@code facets != null}: lọc category/skill/level/workType/ward/city qua bảng job_search_facets
+     * (id đã resolve sẵn), thay cho EXISTS + lower(name) trên các bảng nối.
+     */
+    public static Specification<Job> build(JobFilterRequest r, @Nullable JobFacetFilter facets) {
+        return build(r, facets, null);
+    }
+
+    /**
+     * {@code keywordJobIds != null}: keyword đã được match bởi inverted index,
+     * chỉ còn lọc job_id IN (...) thay cho LIKE trên title.
+     */
+    public static Specification<Job> build(JobFilterRequest r,
+                                           @Nullable JobFacetFilter facets,
+                                           @Nullable Collection<Long> keywordJobIds) {
         List<Specification<Job>> specs = new ArrayList<>();
+        boolean useFacets = facets != null;
 
         // Chuẩn hoá input 1 lần (hạn chế lower() lặp lại)
         String keywordLc      = lc(r.getKeyword());
@@ -27,11 +49,12 @@ public final class JobSpecifications {
         Set<String> wardsLc   = lcSet(r.getWardNames());
 
         // Keyword & Company
-        if (hasText(keywordLc))     specs.add(titleContainsLc(keywordLc));
+        if (keywordJobIds != null)  specs.add(idIn(keywordJobIds));
+        else if (hasText(keywordLc)) specs.add(titleContainsLc(keywordLc));
         if (hasText(companyNameLc)) specs.add(companyNameEqualsLc(companyNameLc));
 
         // City: job có ít nhất một ward thuộc city
-        if (hasText(cityNameLc))    specs.add(anyWardInCityExists(cityNameLc));
+        if (hasText(cityNameLc) && !useFacets) specs.add(anyWardInCityExists(cityNameLc));
 
         // Salary & Posted date
         if (r.getSalaryMin() != null) specs.add(salaryMinAtLeast(r.getSalaryMin()));
@@ -45,6 +68,12 @@ public final class JobSpecifications {
         // Only active
         if (Boolean.TRUE.equals(r.getOnlyActive())) specs.add(notExpired());
 
+        // Many-to-many qua facet index (id lookup)
+        if (useFacets) {
+            for (JobFacetFilter.Criterion c : facets.criteria()) specs.add(facetMatches(c));
+            return specs.isEmpty() ? null : Specification.allOf(specs);
+        }
+
         // Many-to-many by name (ANY/ALL) dùng EXISTS—không dùng DISTINCT
         if (!catsLc.isEmpty())   specs.add(mtmByNameExists("categories", "name",   catsLc,  r.isMatchAllCategories()));
         if (!skillsLc.isEmpty()) specs.add(mtmByNameExists("skills",     "name",   skillsLc,r.isMatchAllSkills()));
@@ -55,6 +84,20 @@ public final class JobSpecifications {
         // AND tất cả điều kiện (không dùng Specification.where(null) — đã deprecated)
         return specs.isEmpty() ? null : Specification.allOf(specs);
     }
+    // Job còn hiệu lực: chưa hết hạn và status khác inactive
+    public static Specification<Job> activeForIndex() {
+        Specification<Job> notInactive = (root, cq, cb) -> cb.or(
+                cb.isNull(root.get("status")),
+                cb.notEqual(cb.lower(root.get("status")), "inactive")
+        );
+        return Specification.allOf(notExpired(), notInactive);
+    }
+
+    private static Specification<Job> idIn(Collection<Long> ids) {
+        if (ids.isEmpty()) return (root, cq, cb) -> cb.disjunction();
+        return (root, cq, cb) -> root.get("id").in(ids);
+    }
+
     private static Specification<Job> titleContainsLc(String keywordLc) {
         return (root, cq, cb) -> cb.like(cb.lower(root.get("title")), "%" + keywordLc + "%");
     }
@@ -147,6 +190,56 @@ public final class JobSpecifications {
             return Specification.allOf(perName);
         }
     }
+    private static Specification<Job> facetMatches(JobFacetFilter.Criterion c) {
+        List<Set<Long>> groups = c.groups();
+        if (groups.isEmpty()) return (root, cq, cb) -> cb.conjunction();
+
+        if (!c.matchAll()) {
+            Set<Long> anyIds = groups.stream()
+                    .flatMap(Set::stream)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            if (anyIds.isEmpty()) return (root, cq, cb) -> cb.disjunction();
+            return (root, cq, cb) -> root.get("id").in(facetJobIds(cq, cb, c.type(), anyIds));
+        }
+
+        // ALL: tên nào không resolve được thì không job nào khớp
+        if (groups.stream().anyMatch(Set::isEmpty)) return (root, cq, cb) -> cb.disjunction();
+
+        if (groups.stream().allMatch(g -> g.size() == 1)) {
+            Set<Long> ids = groups.stream()
+                    .map(g -> g.iterator().next())
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            long required = ids.size();
+            return (root, cq, cb) -> {
+                Subquery<Long> sq = facetJobIds(cq, cb, c.type(), ids);
+                Root<?> f = sq.getRoots().iterator().next();
+                sq.groupBy(f.get("jobId"))
+                        .having(cb.equal(cb.countDistinct(f.get("facetId")), required));
+                return root.get("id").in(sq);
+            };
+        }
+
+        // tên trùng nhiều id (vd: ward cùng tên ở nhiều city) -> mỗi tên 1 subquery
+        List<Specification<Job>> perGroup = groups.stream()
+                .map(g -> (Specification<Job>) (root, cq, cb) ->
+                        root.get("id").in(facetJobIds(cq, cb, c.type(), g)))
+                .toList();
+        return Specification.allOf(perGroup);
+    }
+
+    // SELECT f.job_id FROM job_search_facets f WHERE f.facet_type = ? AND f.facet_id IN (...) — không correlated
+    private static Subquery<Long> facetJobIds(CriteriaQuery<?> cq, CriteriaBuilder cb,
+                                              FacetType type, Collection<Long> facetIds) {
+        Subquery<Long> sq = cq.subquery(Long.class);
+        Root<JobSearchFacet> f = sq.from(JobSearchFacet.class);
+        sq.select(f.get("jobId"))
+                .where(
+                        cb.equal(f.get("facetType"), type),
+                        f.get("facetId").in(facetIds)
+                );
+        return sq;
+    }
+
     private static boolean hasText(String s) { return s != null && !s.isBlank(); }
 
     private static String lc(String s) { return (s == null) ? null : s.toLowerCase(Locale.ROOT).trim(); }
@@ -2,9 +2,21 @@ package com.jobhuntly.backend.repository;
 
 import com.jobhuntly.backend.entity.Level;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface LevelRepository extends JpaRepository<Level,Long> {
     Optional<Level> findByNameIgnoreCase(String name);
+
+    // so sánh trong DB theo collation của cột (vd. không phân biệt dấu), không chuẩn hoá lại ở Java
+    @Query("select l.id from Level l where lower(l.name) = :nameLc")
+    List<Long> findIdsByNameLc(@Param("nameLc") String nameLc);
+
+    // 1 query cho cả lô tên: trả (id, name) của các dòng khớp theo collation của cột
+    @Query("select l.id, l.name from Level l where lower(l.name) in :namesLc")
+    List<Object[]> findIdAndNameByNameLcIn(@Param("namesLc") Collection<String> namesLc);
 }
@@ -0,0 +1,39 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.MailOutbox;
+import com.jobhuntly.backend.entity.enums.MailOutboxStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface MailOutboxRepository extends JpaRepository<MailOutbox, Long> {
+
+    // Nhiều instance cùng drain: mỗi bên khóa 1 lô khác nhau, không chờ nhau
+    @Query(value = """
+            SELECT * FROM mail_outbox
+            WHERE status = 'PENDING' AND next_attempt_at <= :now
+            ORDER BY next_attempt_at, id
+            LIMIT :limit
+            FOR UPDATE SKIP LOCKED
+            """, nativeQuery = true)
+    List<MailOutbox> lockDue(@Param("now") Instant now, @Param("limit") int limit);
+
+    // Lease SENDING hết hạn (instance chết giữa chừng) -> gửi lại
+    @Modifying
+    @Query("update MailOutbox m set m.status = com.jobhuntly.backend.entity.enums.MailOutboxStatus.PENDING " +
+            "where m.status = com.jobhuntly.backend.entity.enums.MailOutboxStatus.SENDING and m.nextAttemptAt < :now")
+    int releaseExpiredLeases(@Param("now") Instant now);
+
+    // Gia hạn lease cho các thư của lô chưa gửi xong (SMTP chậm không làm lease hết hạn giữa chừng)
+    @Modifying
+    @Query("update MailOutbox m set m.nextAttemptAt = :until " +
+            "where m.id in :ids and m.status = com.jobhuntly.backend.entity.enums.MailOutboxStatus.SENDING")
+    int extendLeases(@Param("ids") Collection<Long> ids, @Param("until") Instant until);
+
+    long countByStatus(MailOutboxStatus status);
+}
@@ -0,0 +1,7 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.MailSyncState;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface MailSyncStateRepository extends JpaRepository<MailSyncState, String> {
+}
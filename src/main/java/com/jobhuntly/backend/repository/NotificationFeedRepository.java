@@ -0,0 +1,28 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.Notification;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Map;
+
+public interface NotificationFeedRepository {
+
+    /**
+     * Feed gộp lúc đọc: notification cá nhân + company events của các company user đang follow
+     * (chỉ event từ lúc follow). Event trả về dưới dạng Notification với id âm (= -event_id),
+     * readAt = watermark nếu event đã nằm dưới watermark. Unread trước, rồi createdAt desc.
+     */
+    Page<Notification> findMergedFeed(Long userId, @Nullable Instant companyReadAt, Pageable pageable);
+
+    long countUnreadCompanyEvents(Long userId, @Nullable Instant companyReadAt);
+
+    /**
+     * Tổng unread (notification cá nhân + company event sau watermark) của nhiều user trong 1 query.
+     * User không có gì chưa đọc sẽ không có trong map.
+     */
+    Map<Long, Long> countUnreadByUserIds(Collection<Long> userIds);
+}
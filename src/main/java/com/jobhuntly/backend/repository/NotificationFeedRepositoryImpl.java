@@ -0,0 +1,120 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.Notification;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RequiredArgsConstructor
+class NotificationFeedRepositoryImpl implements NotificationFeedRepository {
+
+    private static final String FOLLOWED_EVENTS = """
+            FROM company_events e
+            JOIN follows f ON f.company_id = e.company_id
+            WHERE f.user_id = :userId AND e.created_at >= f.created_at
+            """;
+
+    private static final String FEED_SQL = """
+            SELECT * FROM (
+                SELECT n.notification_id AS id, n.type, n.title, n.message, n.link,
+                       n.company_id, n.job_id, n.application_id, n.created_at, n.read_at
+                FROM notifications n
+                WHERE n.user_id = :userId
+                UNION ALL
+                SELECT -e.event_id, e.type, e.title, e.message, e.link,
+                       e.company_id, e.job_id, NULL, e.created_at,
+                       CASE WHEN :readAt IS NOT NULL AND e.created_at <= :readAt THEN :readAt END
+            """ + FOLLOWED_EVENTS + """
+            ) feed
+            ORDER BY (read_at IS NULL) DESC, created_at DESC, id DESC
+            LIMIT :limit OFFSET :offset
+            """;
+
+    private static final String TOTAL_SQL = """
+            SELECT (SELECT COUNT(*) FROM notifications WHERE user_id = :userId)
+                 + (SELECT COUNT(*)
+            """ + FOLLOWED_EVENTS + ")";
+
+    private static final String UNREAD_EVENTS_SQL = "SELECT COUNT(*) " + FOLLOWED_EVENTS
+            + " AND (:readAt IS NULL OR e.created_at > :readAt)";
+
+    private static final String UNREAD_BY_USERS_SQL = """
+            SELECT user_id, SUM(c) FROM (
+                SELECT n.user_id, COUNT(*) AS c
+                FROM notifications n
+                WHERE n.user_id IN (:userIds) AND n.read_at IS NULL
+                GROUP BY n.user_id
+                UNION ALL
+                SELECT f.user_id, COUNT(*)
+                FROM company_events e
+                JOIN follows f ON f.company_id = e.company_id
+                LEFT JOIN notification_read_state rs ON rs.user_id = f.user_id
+                WHERE f.user_id IN (:userIds) AND e.created_at >= f.created_at
+                  AND (rs.company_read_at IS NULL OR e.created_at > rs.company_read_at)
+                GROUP BY f.user_id
+            ) unread
+            GROUP BY user_id
+            """;
+
+    private static final RowMapper<Notification> ROW = (rs, i) -> Notification.builder()
+            .notificationId(rs.getLong("id"))
+            .type(rs.getString("type"))
+            .title(rs.getString("title"))
+            .message(rs.getString("message"))
+            .link(rs.getString("link"))
+            .companyId(rs.getObject("company_id", Long.class))
+            .jobId(rs.getObject("job_id", Long.class))
+            .applicationId(rs.getObject("application_id", Long.class))
+            .createdAt(toInstant(rs.getTimestamp("created_at")))
+            .readAt(toInstant(rs.getTimestamp("read_at")))
+            .build();
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    @Override
+    public Page<Notification> findMergedFeed(Long userId, Instant companyReadAt, Pageable pageable) {
+        MapSqlParameterSource params = params(userId, companyReadAt)
+                .addValue("limit", pageable.getPageSize())
+                .addValue("offset", pageable.getOffset());
+        List<Notification> content = jdbc.query(FEED_SQL, params, ROW);
+        Long total = jdbc.queryForObject(TOTAL_SQL, params, Long.class);
+        return new PageImpl<>(content, pageable, total == null ? 0 : total);
+    }
+
+    @Override
+    public long countUnreadCompanyEvents(Long userId, Instant companyReadAt) {
+        Long n = jdbc.queryForObject(UNREAD_EVENTS_SQL, params(userId, companyReadAt), Long.class);
+        return n == null ? 0 : n;
+    }
+
+    @Override
+    public Map<Long, Long> countUnreadByUserIds(Collection<Long> userIds) {
+        Map<Long, Long> out = new HashMap<>();
+        if (userIds.isEmpty()) return out;
+        jdbc.query(UNREAD_BY_USERS_SQL, new MapSqlParameterSource("userIds", userIds),
+                rs -> { out.put(rs.getLong(1), rs.getLong(2)); });
+        return out;
+    }
+
+    private static MapSqlParameterSource params(Long userId, Instant companyReadAt) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("readAt", companyReadAt == null ? null : Timestamp.from(companyReadAt), Types.TIMESTAMP);
+    }
+
+    private static Instant toInstant(Timestamp ts) {
+        return ts == null ? null : ts.toInstant();
+    }
+}
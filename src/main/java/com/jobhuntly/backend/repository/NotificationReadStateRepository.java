@@ -0,0 +1,22 @@
+package com.jobhuntly.backend.repository;
+
+import com.jobhuntly.backend.entity.NotificationReadState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface NotificationReadStateRepository extends JpaRepository<NotificationReadState, Long> {
+
+    // Watermark chỉ tiến, không lùi
+    @Modifying
+    @Query(value = """
+           INSERT INTO notification_read_state (user_id, company_read_at)
+           VALUES (:userId, :readAt)
+           ON DUPLICATE KEY UPDATE company_read_at =
+               GREATEST(COALESCE(company_read_at, VALUES(company_read_at)), VALUES(company_read_at))
+           """, nativeQuery = true)
+    int advanceCompanyReadAt(@Param("userId") Long userId, @Param("readAt") Instant readAt);
+}
@@ -25,4 +25,12 @@ public interface SkillRepository extends JpaRepository<Skill, Long> {
         order by s.name
     """)
     List<String> findNamesByJobId(@Param("jobId") Long jobId);
+
+    // so sánh trong DB theo collation của cột (vd. không phân biệt dấu), không chuẩn hoá lại ở Java
+    @Query("select s.id from Skill s where lower(s.name) = :nameLc")
+    List<Long> findIdsByNameLc(@Param("nameLc") String nameLc);
+
+    // 1 query cho cả lô tên: trả (id, name) của các dòng khớp theo collation của cột
+    @Query("select s.id, s.name from Skill s where lower(s.name) in :namesLc")
+    List<Object[]> findIdAndNameByNameLcIn(@Param("namesLc") Collection<String> namesLc);
 }
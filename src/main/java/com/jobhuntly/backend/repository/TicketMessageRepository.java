@@ -33,4 +33,8 @@ public interface TicketMessageRepository extends JpaRepository<TicketMessage, Lo
     )
     List<TicketMessage> findLastMessagesForTickets(@Param("ticketIds") Collection<Long> ticketIds);
     Optional<TicketMessage> findByMessageId(String messageId);
+
+    // Lọc trùng cả lô thư IMAP bằng 1 query
+    @Query("select tm.messageId from TicketMessage tm where tm.messageId in :messageIds")
+    List<String> findExistingMessageIds(@Param("messageIds") Collection<String> messageIds);
 }
@@ -26,6 +26,11 @@ public interface UserSessionRepository extends JpaRepository<UserSession, Long>
             "where s.user.id = :userId and s.revokedAt is null")
     int revokeAllByUserId(@Param("userId") Long userId);
 
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("update UserSession s set s.revokedAt = CURRENT_TIMESTAMP " +
+            "where s.refreshTokenHash = :hash and s.revokedAt is null")
+    int revokeByRefreshTokenHash(@Param("hash") String hash);
+
     /** Revoke toàn bộ family (khi phát hiện reuse) */
     @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("update UserSession s set s.revokedAt = CURRENT_TIMESTAMP " +
@@ -36,4 +41,9 @@ public interface UserSessionRepository extends JpaRepository<UserSession, Long>
     @Modifying
     @Query("delete from UserSession s where s.refreshExpiresAt < :cutoff")
     int deleteExpired(@Param("cutoff") Instant cutoff);
+
+    /** Như deleteExpired nhưng giới hạn số dòng mỗi lần, tránh giữ lock lâu */
+    @Modifying
+    @Query(value = "DELETE FROM user_sessions WHERE refresh_expires_at < :cutoff LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("cutoff") Instant cutoff, @Param("limit") int limit);
 }
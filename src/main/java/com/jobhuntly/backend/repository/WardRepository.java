@@ -2,9 +2,15 @@ package com.jobhuntly.backend.repository;
 
 import com.jobhuntly.backend.entity.Ward;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface WardRepository extends JpaRepository<Ward, Long> {
     List<Ward> findByCity_NameIgnoreCase(String cityName);
+
+    // so sánh trong DB theo collation của cột (vd. không phân biệt dấu), không chuẩn hoá lại ở Java
+    @Query("select w.id from Ward w where lower(w.name) = :nameLc")
+    List<Long> findIdsByNameLc(@Param("nameLc") String nameLc);
 }
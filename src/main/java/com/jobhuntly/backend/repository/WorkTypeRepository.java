@@ -2,10 +2,21 @@ package com.jobhuntly.backend.repository;
 
 import com.jobhuntly.backend.entity.WorkType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface WorkTypeRepository extends JpaRepository<WorkType, Long> {
     Optional<WorkType> findByNameIgnoreCase(String name);
 
+    // so sánh trong DB theo collation của cột (vd. không phân biệt dấu), không chuẩn hoá lại ở Java
+    @Query("select w.id from WorkType w where lower(w.name) = :nameLc")
+    List<Long> findIdsByNameLc(@Param("nameLc") String nameLc);
+
+    // 1 query cho cả lô tên: trả (id, name) của các dòng khớp theo collation của cột
+    @Query("select w.id, w.name from WorkType w where lower(w.name) in :namesLc")
+    List<Object[]> findIdAndNameByNameLcIn(@Param("namesLc") Collection<String> namesLc);
 }
@@ -1,8 +1,6 @@
 package com.jobhuntly.backend.security;
 
 import com.jobhuntly.backend.dto.auth.AppPrincipal;
-import com.jobhuntly.backend.entity.User;
-import com.jobhuntly.backend.repository.UserRepository;
 import com.jobhuntly.backend.security.cookie.AuthCookieService;
 import com.jobhuntly.backend.security.cookie.CookieProperties;
 import com.jobhuntly.backend.security.jwt.JwtUtil;
@@ -37,7 +35,7 @@ public class AuthenticationFilter extends OncePerRequestFilter {
     private final JwtUtil jwtUtil;
     private final CookieProperties cookieProps;
     private final AuthCookieService authCookieService;
-    private final UserRepository userRepository;
+    private final PrincipalSnapshotCache principalCache;
 
     @Value("${backend.prefix:/api/v1}")
     private String backendPrefix;
@@ -61,7 +59,8 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         // skip swagger, docs, static files
         if (PATH_MATCHER.match("/swagger-ui/**", p)) return true;
         if (PATH_MATCHER.match("/v3/api-docs/**", p)) return true;
-        if (PATH_MATCHER.match("/actuator/**", p)) return true;
+        // chỉ health là public; /actuator/** còn lại cần token admin nên vẫn phải qua filter
+        if (PATH_MATCHER.match("/actuator/health/**", p)) return true;
         if (PATH_MATCHER.match("/public/**", p)) return true;
 
         return false;
@@ -129,17 +128,16 @@ public class AuthenticationFilter extends OncePerRequestFilter {
                     Claims rc = jwtUtil.parseAndValidate(rt);
                     if (jwtUtil.isRefresh(rc)) {
                         Long userId = jwtUtil.userIdFromClaims(rc);
-                        User user = userRepository.findById(userId).orElse(null);
-                        if (user != null) {
-                            String newAt = jwtUtil.issueAccessToken(user);
+                        // snapshot ngắn hạn + 1 lần mint cho các request song song, không load User mỗi request
+                        PrincipalSnapshotCache.Minted minted = principalCache.mintAccessToken(userId);
+                        if (minted != null) {
+                            authCookieService.setAccessCookie(res, minted.accessToken(), jwtUtil.getAccessTtl());
 
-                            authCookieService.setAccessCookie(res, newAt, jwtUtil.getAccessTtl());
-
-                            setAuthFromUser(req, user);
+                            setAuthFromSnapshot(req, minted.snapshot());
 
                             authenticated = true;
                         } else {
-                            log.debug("Silent refresh: user {} not found", userId);
+                            log.debug("Silent refresh: user {} not found or banned", userId);
                         }
                     }
                 } catch (ExpiredJwtException e) {
@@ -179,15 +177,11 @@ public class AuthenticationFilter extends OncePerRequestFilter {
         return null;
     }
 
-    private void setAuthFromUser(HttpServletRequest req, User user) {
-        String roleName = (user.getRole() != null && user.getRole().getRoleName() != null)
-                ? user.getRole().getRoleName().toUpperCase()
-                : "USER";
-        String authority = "ROLE_" + roleName;
-        AppPrincipal principal = new AppPrincipal(user.getId(), user.getEmail());
+    private void setAuthFromSnapshot(HttpServletRequest req, PrincipalSnapshotCache.Snapshot snapshot) {
+        AppPrincipal principal = new AppPrincipal(snapshot.userId(), snapshot.email());
         UsernamePasswordAuthenticationToken auth =
                 new UsernamePasswordAuthenticationToken(
-                        principal, null, List.of(new SimpleGrantedAuthority(authority)));
+                        principal, null, List.of(new SimpleGrantedAuthority(snapshot.authority())));
         auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(req));
         SecurityContextHolder.getContext().setAuthentication(auth);
     }
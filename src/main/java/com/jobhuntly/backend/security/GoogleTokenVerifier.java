@@ -0,0 +1,64 @@
+package com.jobhuntly.backend.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.googleapis.auth.oauth2.GooglePublicKeysManager;
+import com.google.api.client.googleapis.util.Utils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Collections;
+
+/**
+ * 1 verifier dùng chung cho đăng nhập Google. Public key của Google được tải sẵn khi khởi động và làm mới nền
+ * trước khi hết hạn (theo Cache-Control max-age) - verify() chỉ còn kiểm tra chữ ký, không gọi mạng.
+ */
+@Slf4j
+@Component
+public class GoogleTokenVerifier {
+    // GooglePublicKeysManager tự refresh trong verify() khi key còn < 5 phút -> làm mới sớm hơn mốc đó
+    private static final long REFRESH_AHEAD_MS = 10 * 60_000L;
+
+    private final GoogleIdTokenVerifier verifier;
+
+    @Autowired
+    public GoogleTokenVerifier(@Value("${google.client-id}") String clientId) {
+        this(new GoogleIdTokenVerifier.Builder(Utils.getDefaultTransport(), Utils.getDefaultJsonFactory())
+                .setAudience(Collections.singletonList(clientId))
+                .build());
+    }
+
+    // test / benchmark: verifier dùng transport giả
+    GoogleTokenVerifier(GoogleIdTokenVerifier verifier) {
+        this.verifier = verifier;
+    }
+
+    /** Token hợp lệ (chữ ký, issuer, audience, hạn) thì trả payload, ngược lại null. */
+    public GoogleIdToken verify(String idToken) {
+        if (idToken == null || idToken.isBlank()) return null;
+        try {
+            return verifier.verify(idToken);
+        } catch (Exception ex) {
+            log.debug("Google ID token rejected: {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    // lần chạy đầu ngay khi khởi động = warm-up (expiration ban đầu = 0)
+    @Scheduled(fixedDelayString = "${google.keys.check-ms:60000}")
+    public void refreshKeysIfExpiring() {
+        GooglePublicKeysManager keys = verifier.getPublicKeysManager();
+        if (keys.getExpirationTimeMilliseconds() - System.currentTimeMillis() > REFRESH_AHEAD_MS) return;
+        try {
+            keys.refresh();
+            log.info("Google public keys refreshed, valid until {}", Instant.ofEpochMilli(keys.getExpirationTimeMilliseconds()));
+        } catch (Exception ex) {
+            // key cũ vẫn dùng được tới khi hết hạn; lần kiểm tra sau thử lại
+            log.warn("Failed to refresh Google public keys: {}", ex.getMessage());
+        }
+    }
+}
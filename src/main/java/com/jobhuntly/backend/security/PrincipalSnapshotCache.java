@@ -0,0 +1,160 @@
+package com.jobhuntly.backend.security;
+
+import com.jobhuntly.backend.entity.Role;
+import com.jobhuntly.backend.entity.User;
+import com.jobhuntly.backend.entity.enums.Status;
+import com.jobhuntly.backend.repository.UserRepository;
+import com.jobhuntly.backend.security.jwt.JwtUtil;
+import com.jobhuntly.backend.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snapshot ngắn hạn của user (email, role, banned) cho việc mint access token khi refresh
+ * ({@code AuthService.refreshToken} và silent refresh trong {@link AuthenticationFilter}):
+ * loạt refresh song song không còn mỗi request 1 lần load User, và chỉ mint 1 access token.
+ * Bị xoá khi đổi role / ban / revokeAll (sau commit), node khác nhận invalidate qua Redis topic;
+ * TTL ngắn chặn phần còn lại (thay đổi trực tiếp trong DB).
+ * Không có "token version": refresh token là phiên opaque phía server nên thu hồi đi qua
+ * revokeAll (đã evict snapshot), User cũng không có cột version nào để so.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PrincipalSnapshotCache {
+    private static final String INVALIDATE_TOPIC = "principal:invalidate";
+
+    private final UserRepository userRepository;
+    private final JwtUtil jwtUtil;
+    private final ObjectProvider<RedissonClient> redissonProvider;
+
+    @Value("${security.principal-cache.ttl-ms:30000}")
+    private long ttlMs;
+
+    @Value("${security.principal-cache.max-users:10000}")
+    private int maxUsers;
+
+    public record Snapshot(Long userId, String email, Integer roleId, String roleName, boolean banned) {
+        public String authority() {
+            return "ROLE_" + (roleName != null ? roleName.toUpperCase() : "USER");
+        }
+    }
+
+    public record Minted(Snapshot snapshot, String accessToken) {}
+
+    private record Entry(Snapshot snapshot, long expiresAt) {}
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<Long, Entry> snapshots = new ConcurrentHashMap<>();
+    private final Map<Long, CompletableFuture<Minted>> minting = new ConcurrentHashMap<>();
+    // Tăng mỗi lần invalidate; lần nạp nào bắt đầu trước đó thì không được đưa vào cache
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        RedissonClient redisson = redissonProvider.getIfAvailable();
+        if (redisson == null) return;
+        try {
+            redisson.getTopic(INVALIDATE_TOPIC).addListener(String.class, (channel, msg) -> {
+                // msg = "<nodeId>:<userId>"; bỏ qua message do chính node này gửi
+                int sep = msg.indexOf(':');
+                if (sep < 0 || msg.substring(0, sep).equals(nodeId)) return;
+                try {
+                    evict(Long.valueOf(msg.substring(sep + 1)));
+                } catch (NumberFormatException ignore) {
+                    // message lạ -> bỏ qua
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Cannot subscribe to {}: {}", INVALIDATE_TOPIC, e.getMessage());
+        }
+    }
+
+    /**
+     * Mint access token mới cho silent refresh. Các request đồng thời của cùng user dùng chung 1 lần mint.
+     * Trả null nếu user không tồn tại hoặc bị ban.
+     */
+    public Minted mintAccessToken(Long userId) {
+        CompletableFuture<Minted> mine = new CompletableFuture<>();
+        CompletableFuture<Minted> running = minting.putIfAbsent(userId, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            Snapshot s = snapshot(userId);
+            Minted minted = (s == null || s.banned()) ? null
+                    : new Minted(s, jwtUtil.issueAccessToken(s.userId(), s.email(), new Role(s.roleId(), s.roleName())));
+            mine.complete(minted);
+            return minted;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            minting.remove(userId, mine);
+        }
+    }
+
+    public Snapshot snapshot(Long userId) {
+        long now = System.currentTimeMillis();
+        Entry e = snapshots.get(userId);
+        if (e != null && e.expiresAt() > now) return e.snapshot();
+
+        long startedAt = invalidations.get();
+        User user = userRepository.findById(userId).orElse(null);
+        if (user == null) return null;
+        Role role = user.getRole();
+        Snapshot s = new Snapshot(user.getId(), user.getEmail(),
+                role != null ? role.getId() : null,
+                role != null ? role.getRoleName() : null,
+                user.getStatus() == Status.BANNED);
+
+        if (snapshots.size() >= maxUsers) {
+            snapshots.values().removeIf(x -> x.expiresAt() <= now);
+            if (snapshots.size() >= maxUsers) snapshots.clear();
+        }
+        if (invalidations.get() == startedAt) {
+            snapshots.put(userId, new Entry(s, now + ttlMs));
+        }
+        return s;
+    }
+
+    // Gọi trong transaction đổi role / ban / revoke; áp dụng sau commit
+    public void evictAfterCommit(Long userId) {
+        if (userId == null) return;
+        TransactionUtils.afterCommit(() -> {
+            evict(userId);
+            publish(userId);
+        });
+    }
+
+    public void evict(Long userId) {
+        invalidations.incrementAndGet();
+        snapshots.remove(userId);
+    }
+
+    private void publish(Long userId) {
+        RedissonClient redisson = redissonProvider.getIfAvailable();
+        if (redisson == null) return;
+        try {
+            redisson.getTopic(INVALIDATE_TOPIC).publish(nodeId + ":" + userId);
+        } catch (Exception e) {
+            log.warn("Cannot publish principal invalidation for user {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -14,5 +14,7 @@ public class JwtProperties {
     private String issuer = "jobhuntly";
     private Duration accessTtl = Duration.ofMinutes(15);
     private Duration refreshTtl = Duration.ofDays(7);
+    // số access token đã verify được nhớ (0 = tắt)
+    private int validatedCacheSize = 10000;
 }
 
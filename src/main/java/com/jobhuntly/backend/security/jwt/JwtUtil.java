@@ -1,13 +1,17 @@
 package com.jobhuntly.backend.security.jwt;
 
+import com.jobhuntly.backend.entity.Role;
 import com.jobhuntly.backend.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
+import lombok.AccessLevel;
 import lombok.Getter;
+import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
@@ -16,6 +20,8 @@ import java.security.Key;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Component
 @Getter
@@ -33,11 +39,25 @@ public class JwtUtil {
     private final Duration accessTtl;
     private final Duration refreshTtl;
 
+    // JwtParser bất biến, dùng chung cho mọi thread
+    @Getter(AccessLevel.NONE)
+    private final JwtParser parser;
+
+    // access token đã verify gần đây: digest -> claims, giữ tới exp của chính token
+    @Getter(AccessLevel.NONE)
+    private final Map<String, Validated> validated = new ConcurrentHashMap<>();
+    @Getter(AccessLevel.NONE)
+    private final int validatedCacheSize;
+
+    private record Validated(Claims claims, long expiresAt) {}
+
     public JwtUtil(JwtProperties props) {
         this.key = buildKey(props.getSecret());
         this.issuer = props.getIssuer();
         this.accessTtl = props.getAccessTtl();
         this.refreshTtl = props.getRefreshTtl();
+        this.parser = Jwts.parserBuilder().setSigningKey((Key) key).build();
+        this.validatedCacheSize = props.getValidatedCacheSize();
     }
 
     private SecretKey buildKey(String secretBase64OrRaw) {
@@ -55,12 +75,16 @@ public class JwtUtil {
     }
 
     public String issueAccessToken(User user) {
+        return issueAccessToken(user.getId(), user.getEmail(), user.getRole());
+    }
+
+    public String issueAccessToken(Long userId, String email, Role role) {
         Instant now = Instant.now();
         return Jwts.builder()
-                .setSubject(user.getEmail())
+                .setSubject(email)
                 .setIssuer(issuer)
-                .claim(CLAIM_ROLE, user.getRole())
-                .claim(CLAIM_USERID, user.getId())
+                .claim(CLAIM_ROLE, role)
+                .claim(CLAIM_USERID, userId)
                 .claim(CLAIM_TYP, TYP_ACCESS)
                 .setIssuedAt(Date.from(now))
                 .setExpiration(Date.from(now.plus(accessTtl)))
@@ -81,12 +105,34 @@ public class JwtUtil {
                 .compact();
     }
 
+    /**
+     * Verify chữ ký + hạn rồi trả claims. Access token hợp lệ được nhớ theo digest tới khi hết hạn,
+     * lần sau chỉ tốn 1 lần SHA-256 thay vì HMAC + parse JSON.
+     * Claims trả về dùng chung giữa các request - chỉ đọc, không sửa.
+     */
     public Claims parseAndValidate(String token) throws JwtException {
-        return Jwts.parserBuilder()
-                .setSigningKey((Key) key)
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        if (validatedCacheSize <= 0 || token == null) {
+            return parser.parseClaimsJws(token).getBody();
+        }
+
+        String digest = DigestUtils.sha256Hex(token);
+        long now = System.currentTimeMillis();
+        Validated hit = validated.get(digest);
+        if (hit != null) {
+            if (hit.expiresAt() > now) return hit.claims();
+            validated.remove(digest, hit); // hết hạn -> parse lại để ném ExpiredJwtException như cũ
+        }
+
+        Claims claims = parser.parseClaimsJws(token).getBody();
+        Date exp = claims.getExpiration();
+        if (exp != null && isAccess(claims)) {
+            if (validated.size() >= validatedCacheSize) {
+                validated.values().removeIf(v -> v.expiresAt() <= now);
+                if (validated.size() >= validatedCacheSize) validated.clear();
+            }
+            validated.put(digest, new Validated(claims, exp.getTime()));
+        }
+        return claims;
     }
 
     public boolean isAccess(Claims c)  { return TYP_ACCESS.equals(c.get(CLAIM_TYP)); }
@@ -1,9 +1,15 @@
 package com.jobhuntly.backend.service;
 
+import com.jobhuntly.backend.dto.ai.BatchMatchItem;
 import com.jobhuntly.backend.dto.ai.MatchResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 public interface AiMatchService {
-    MatchResponse matchCandidateToJob(Long userId, Long jobId, String resumeFileId, String resumeText, boolean useFileApi);
+    Mono<MatchResponse> matchCandidateToJob(Long userId, Long jobId, String resumeFileId, String resumeText, boolean useFileApi);
 
-    MatchResponse matchByUploadedFile(Long userId, Long jobId, byte[] pdfBytes, boolean useFileApi);
+    Mono<MatchResponse> matchByUploadedFile(Long userId, Long jobId, byte[] pdfBytes, boolean useFileApi);
+
+    // Chấm toàn bộ application của 1 job, phát từng kết quả khi xong (thứ tự hoàn thành)
+    Flux<BatchMatchItem> matchApplicationsOfJob(Long requesterId, boolean admin, Long jobId);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package com.jobhuntly.backend.service;
 import java.io.IOException;
 import java.util.List;
 
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.jobhuntly.backend.dto.response.CvTemplateResponse;
@@ -22,5 +23,5 @@ public interface CvTemplateService {
 
     String renderHtml(Long templateId, ProfileCombinedResponse profile);
 
-    byte[] renderPdf(Long templateId, ProfileCombinedResponse profile);
+    Resource renderPdf(Long templateId, ProfileCombinedResponse profile);
 }
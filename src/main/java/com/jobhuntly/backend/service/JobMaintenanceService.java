@@ -1,17 +1,21 @@
 package com.jobhuntly.backend.service;
 
 import com.jobhuntly.backend.repository.JobRepository;
+import com.jobhuntly.backend.service.search.JobKeywordIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
+
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class JobMaintenanceService {
 
     private final JobRepository jobRepository;
+    private final JobKeywordIndex jobKeywordIndex;
 
     // Chạy lúc 00:30 mỗi ngày (theo timezone server)
     @Scheduled(cron = "0 30 0 * * *")
@@ -20,5 +24,9 @@ public class JobMaintenanceService {
         if (updated > 0) {
             log.info("Deactivated {} expired jobs", updated);
         }
+        int evicted = jobKeywordIndex.evictExpired(LocalDate.now());
+        if (evicted > 0) {
+            log.info("Evicted {} expired jobs from keyword index", evicted);
+        }
     }
 } 
\ No newline at end of file
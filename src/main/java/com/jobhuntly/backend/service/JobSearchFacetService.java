@@ -0,0 +1,15 @@
+package com.jobhuntly.backend.service;
+
+import com.jobhuntly.backend.dto.request.JobFilterRequest;
+import com.jobhuntly.backend.entity.Job;
+import com.jobhuntly.backend.repository.JobFacetFilter;
+import org.springframework.lang.Nullable;
+
+public interface JobSearchFacetService {
+    // Ghi lại toàn bộ facet của 1 job (gọi sau create/patch, cùng transaction)
+    void index(Job job);
+
+    // null = facet index đang tắt -> JobSpecifications dùng EXISTS theo tên như cũ
+    @Nullable
+    JobFacetFilter resolve(JobFilterRequest request);
+}
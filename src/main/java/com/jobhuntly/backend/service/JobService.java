@@ -3,10 +3,12 @@ package com.jobhuntly.backend.service;
 import com.jobhuntly.backend.dto.request.JobFilterRequest;
 import com.jobhuntly.backend.dto.request.JobPatchRequest;
 import com.jobhuntly.backend.dto.request.JobRequest;
+import com.jobhuntly.backend.dto.response.CursorPage;
 import com.jobhuntly.backend.dto.response.JobItemWithStatus;
 import com.jobhuntly.backend.dto.response.JobResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.lang.Nullable;
 
 public interface JobService {
@@ -30,5 +32,11 @@ public interface JobService {
 
     Page<JobResponse> searchLite(JobFilterRequest request, Pageable pageable);
 
+    CursorPage<JobResponse> searchLiteKeyset(JobFilterRequest request, Sort sort, @Nullable String cursor,
+                                             int size, boolean withTotal);
+
+    CursorPage<JobItemWithStatus> searchLiteKeysetWithStatus(JobFilterRequest request, Sort sort, @Nullable String cursor,
+                                                             int size, boolean withTotal, @Nullable Long userId);
+
     Page<JobResponse> searchByCompany(Long companyId, JobFilterRequest request, Pageable pageable);
 }
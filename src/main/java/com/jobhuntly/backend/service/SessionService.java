@@ -14,7 +14,7 @@ public interface SessionService {
     StartSessionResult startSession(User user, HttpServletRequest req, String deviceLabel);
 
     /** Dùng refresh token hiện tại (từ cookie) để rotate:
-     *  - Trả new access (để issue ở chỗ khác), new refresh (để set cookie), user, session mới */
+     *  - Trả userId (access token issue ở chỗ khác), new refresh (để set cookie), session mới */
     RefreshResult rotate(String rawRefreshToken, HttpServletRequest req);
 
     /** Thu hồi phiên hiện tại (dựa trên refresh token trong cookie) */
@@ -0,0 +1,145 @@
+package com.jobhuntly.backend.service.cache;
+
+import com.jobhuntly.backend.repository.FollowRepository;
+import com.jobhuntly.backend.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache các company mà user đang follow, mỗi user 1 mảng long[] đã sort (tra bằng binary search).
+ * Nạp lười từ DB ở lần hỏi đầu, cập nhật write-through sau commit của follow/unfollow,
+ * giới hạn số user theo LRU. Node khác nhận invalidate qua Redis topic.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FollowSetCache {
+    private static final String INVALIDATE_TOPIC = "follow:invalidate";
+    private static final long[] EMPTY = new long[0];
+
+    private final FollowRepository followRepository;
+    private final ObjectProvider<RedissonClient> redissonProvider;
+
+    @Value("${app.follow-cache.max-users:100000}")
+    private int maxUsers;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private Map<Long, long[]> sets;
+    // Tăng mỗi lần có ghi; lần nạp nào bắt đầu trước 1 lần ghi thì không được đưa vào cache
+    private final AtomicLong writes = new AtomicLong();
+
+    @PostConstruct
+    void init() {
+        sets = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, long[]> eldest) {
+                return size() > maxUsers;
+            }
+        };
+
+        RedissonClient redisson = redissonProvider.getIfAvailable();
+        if (redisson == null) return;
+        try {
+            redisson.getTopic(INVALIDATE_TOPIC).addListener(String.class, (channel, msg) -> {
+                // msg = "<nodeId>:<userId>"; bỏ qua message do chính node này gửi
+                int sep = msg.indexOf(':');
+                if (sep < 0 || msg.substring(0, sep).equals(nodeId)) return;
+                try {
+                    evict(Long.valueOf(msg.substring(sep + 1)));
+                } catch (NumberFormatException ignore) {
+                    // message lạ -> bỏ qua
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Cannot subscribe to {}: {}", INVALIDATE_TOPIC, e.getMessage());
+        }
+    }
+
+    public boolean isFollowing(Long userId, Long companyId) {
+        if (userId == null || companyId == null) return false;
+        return Arrays.binarySearch(companiesOf(userId), companyId) >= 0;
+    }
+
+    // Gọi trong transaction follow/unfollow; áp dụng sau commit
+    public void followedAfterCommit(Long userId, Long companyId) {
+        TransactionUtils.afterCommit(() -> {
+            update(userId, companyId, true);
+            publish(userId);
+        });
+    }
+
+    public void unfollowedAfterCommit(Long userId, Long companyId) {
+        TransactionUtils.afterCommit(() -> {
+            update(userId, companyId, false);
+            publish(userId);
+        });
+    }
+
+    public void evict(Long userId) {
+        writes.incrementAndGet();
+        synchronized (this) {
+            sets.remove(userId);
+        }
+    }
+
+    private long[] companiesOf(Long userId) {
+        synchronized (this) {
+            long[] cached = sets.get(userId);
+            if (cached != null) return cached;
+        }
+
+        long startedAt = writes.get();
+        List<Long> ids = followRepository.findCompanyIdsByUserId(userId);
+        long[] loaded = ids.isEmpty() ? EMPTY : ids.stream().mapToLong(Long::longValue).sorted().distinct().toArray();
+
+        synchronized (this) {
+            if (writes.get() == startedAt) sets.putIfAbsent(userId, loaded);
+        }
+        return loaded;
+    }
+
+    // Copy-on-write: mảng đã đưa ra ngoài không bao giờ bị sửa
+    private void update(Long userId, Long companyId, boolean add) {
+        writes.incrementAndGet();
+        synchronized (this) {
+            long[] cur = sets.get(userId);
+            if (cur == null) return; // chưa nạp thì để lần đọc sau nạp từ DB
+            int idx = Arrays.binarySearch(cur, companyId);
+            if (add && idx < 0) {
+                int at = -idx - 1;
+                long[] next = new long[cur.length + 1];
+                System.arraycopy(cur, 0, next, 0, at);
+                next[at] = companyId;
+                System.arraycopy(cur, at, next, at + 1, cur.length - at);
+                sets.put(userId, next);
+            } else if (!add && idx >= 0) {
+                long[] next = new long[cur.length - 1];
+                System.arraycopy(cur, 0, next, 0, idx);
+                System.arraycopy(cur, idx + 1, next, idx, cur.length - idx - 1);
+                sets.put(userId, next);
+            }
+        }
+    }
+
+    private void publish(Long userId) {
+        RedissonClient redisson = redissonProvider.getIfAvailable();
+        if (redisson == null) return;
+        try {
+            redisson.getTopic(INVALIDATE_TOPIC).publish(nodeId + ":" + userId);
+        } catch (Exception e) {
+            log.warn("Publish follow invalidation for user {} failed: {}", userId, e.getMessage());
+        }
+    }
+}
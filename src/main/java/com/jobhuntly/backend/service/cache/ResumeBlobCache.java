@@ -0,0 +1,164 @@
+package com.jobhuntly.backend.service.cache;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Cache file CV trên đĩa cho AI match, theo địa chỉ nội dung:
+ * <ul>
+ *   <li>index (applicationId, URL CV) -> SHA-256 giữ trong RAM, nên tra key AI_MATCH không cần đọc/tải file;</li>
+ *   <li>bytes lưu 1 file/hash trong {@code app.resume-cache.dir}, CV trùng nội dung chỉ lưu 1 lần;</li>
+ *   <li>tổng dung lượng giới hạn bởi {@code app.resume-cache.max-bytes}, bỏ theo LRU.</li>
+ * </ul>
+ * CV đổi thì URL đổi (Cloudinary có version trong URL) -> key mới, tải lại đúng 1 lần.
+ * Index không lưu qua restart nên thư mục được dọn khi khởi động.
+ */
+@Slf4j
+@Component
+public class ResumeBlobCache {
+
+    @Value("${app.resume-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.resume-cache.dir:${java.io.tmpdir}/jobhuntly-resumes}")
+    private String dirPath;
+
+    @Value("${app.resume-cache.max-bytes:536870912}")
+    private long maxBytes;
+
+    private Path dir;
+    // "applicationId|url" -> hash, thứ tự truy cập cho LRU
+    private final LinkedHashMap<String, String> index = new LinkedHashMap<>(256, 0.75f, true);
+    // hash -> số key đang trỏ tới + kích thước file
+    private final Map<String, Blob> blobs = new HashMap<>();
+    private long totalBytes;
+
+    private static final class Blob {
+        final long size;
+        int refs;
+
+        Blob(long size) {
+            this.size = size;
+        }
+    }
+
+    @PostConstruct
+    void init() {
+        if (!enabled) return;
+        try {
+            dir = Files.createDirectories(Paths.get(dirPath));
+            try (Stream<Path> old = Files.list(dir)) {
+                old.forEach(ResumeBlobCache::deleteQuietly);
+            }
+        } catch (IOException e) {
+            log.warn("Resume cache disabled, cannot use {}: {}", dirPath, e.getMessage());
+            enabled = false;
+        }
+    }
+
+    /** Hash (Base64 SHA-256, cùng định dạng key AI_MATCH) của CV đã cache, rỗng nếu chưa có. */
+    public synchronized Optional<String> hashOf(Integer applicationId, String url) {
+        if (!enabled) return Optional.empty();
+        return Optional.ofNullable(index.get(key(applicationId, url)));
+    }
+
+    /** Đọc bytes theo hash; rỗng nếu file đã bị bỏ (LRU) hoặc lỗi đọc -> caller tải lại. */
+    public Optional<byte[]> read(String hash) {
+        if (!enabled) return Optional.empty();
+        try {
+            return Optional.of(Files.readAllBytes(file(hash)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            log.debug("Read cached resume {} failed: {}", hash, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /** Ghi CV vừa tải vào cache, trả về hash của nó. */
+    public String put(Integer applicationId, String url, byte[] bytes) {
+        String hash = sha256(bytes);
+        if (!enabled || bytes.length > maxBytes) return hash;
+
+        Path target = file(hash);
+        try {
+            if (!Files.exists(target)) {
+                // ghi file tạm rồi move để luồng khác không đọc phải file dở
+                Path tmp = Files.createTempFile(dir, "cv-", ".part");
+                Files.write(tmp, bytes);
+                Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+        } catch (IOException e) {
+            log.debug("Write cached resume for application {} failed: {}", applicationId, e.getMessage());
+            return hash;
+        }
+
+        synchronized (this) {
+            String k = key(applicationId, url);
+            String previous = index.put(k, hash);
+            if (hash.equals(previous)) return hash;
+            if (previous != null) release(previous);
+
+            Blob blob = blobs.get(hash);
+            if (blob == null) {
+                blob = new Blob(bytes.length);
+                blobs.put(hash, blob);
+                totalBytes += blob.size;
+            }
+            blob.refs++;
+            evictIfNeeded();
+        }
+        return hash;
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, String>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            String hash = it.next().getValue();
+            it.remove();
+            release(hash);
+        }
+    }
+
+    private void release(String hash) {
+        Blob blob = blobs.get(hash);
+        if (blob == null || --blob.refs > 0) return;
+        blobs.remove(hash);
+        totalBytes -= blob.size;
+        deleteQuietly(file(hash));
+    }
+
+    private Path file(String hash) {
+        // Base64 có '/' và '+' -> đổi sang dạng an toàn cho tên file
+        return dir.resolve(hash.replace('/', '_').replace('+', '-'));
+    }
+
+    private static String key(Integer applicationId, String url) {
+        return applicationId + "|" + url;
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignore) {
+            // lần dọn sau sẽ xoá
+        }
+    }
+
+    public static String sha256(byte[] bytes) {
+        try {
+            return Base64.getEncoder().encodeToString(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package com.jobhuntly.backend.service.dictionary;
+
+import com.jobhuntly.backend.entity.Category;
+import com.jobhuntly.backend.entity.Level;
+import com.jobhuntly.backend.entity.Skill;
+import com.jobhuntly.backend.entity.WorkType;
+import com.jobhuntly.backend.repository.CategoryRepository;
+import com.jobhuntly.backend.repository.LevelRepository;
+import com.jobhuntly.backend.repository.SkillRepository;
+import com.jobhuntly.backend.repository.WorkTypeRepository;
+import com.jobhuntly.backend.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Từ điển tên (lowercase) -> id cho Category/Skill/Level/WorkType, nạp 1 lần mỗi loại.
+ * Create/patch job resolve tên qua đây rồi dùng getReferenceById, không SELECT theo từng tên.
+ * Khi tạo category/skill mới: xoá bản local sau commit và publish qua Redis để các node khác nạp lại.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobDictionary {
+    private static final String INVALIDATE_TOPIC = "dict:invalidate";
+
+    public enum Type { CATEGORY, SKILL, LEVEL, WORK_TYPE }
+
+    private final CategoryRepository categoryRepository;
+    private final SkillRepository skillRepository;
+    private final LevelRepository levelRepository;
+    private final WorkTypeRepository workTypeRepository;
+    private final ObjectProvider<RedissonClient> redissonProvider;
+
+    @Value("${app.dictionary.miss-ttl-ms:60000}")
+    private long missTtlMs;
+
+    private final Map<Type, Map<String, Long>> idsByType = new ConcurrentHashMap<>();
+    // tên đã tra DB mà không có: tên -> hết hạn (epoch ms), tránh hỏi lại DB mỗi request
+    private final Map<Type, Map<String, Long>> missesByType = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void subscribe() {
+        RedissonClient redisson = redissonProvider.getIfAvailable();
+        if (redisson == null) return;
+        try {
+            redisson.getTopic(INVALIDATE_TOPIC).addListener(String.class, (channel, msg) -> {
+                try {
+                    invalidateLocal(Type.valueOf(msg));
+                } catch (IllegalArgumentException ignore) {
+                    // message lạ -> bỏ qua
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Cannot subscribe to {}: {}", INVALIDATE_TOPIC, e.getMessage());
+        }
+    }
+
+    public Set<Category> categories(Collection<String> names) {
+        return references(Type.CATEGORY, names, categoryRepository::getReferenceById);
+    }
+
+    public Set<Skill> skills(Collection<String> names) {
+        return references(Type.SKILL, names, skillRepository::getReferenceById);
+    }
+
+    public Set<Level> levels(Collection<String> names) {
+        return references(Type.LEVEL, names, levelRepository::getReferenceById);
+    }
+
+    public Set<WorkType> workTypes(Collection<String> names) {
+        return references(Type.WORK_TYPE, names, workTypeRepository::getReferenceById);
+    }
+
+    /**
+     * Tên (lowercase, trim) -> id; tên không tồn tại sẽ không có trong map.
+     * Tên chưa có trong từ điển được tra DB 1 lần theo lô rồi bổ sung vào từ điển;
+     * tên không tồn tại được nhớ {@code app.dictionary.miss-ttl-ms}.
+     */
+    public Map<String, Long> idsByName(Type type, Collection<String> names) {
+        Map<String, Long> dict = dictionary(type);
+        Map<String, Long> knownMisses = missesByType.computeIfAbsent(type, t -> new ConcurrentHashMap<>());
+        long now = System.currentTimeMillis();
+        Map<String, Long> out = new LinkedHashMap<>();
+        List<String> misses = new ArrayList<>();
+        for (String raw : names) {
+            String key = key(raw);
+            if (key.isEmpty() || out.containsKey(key) || misses.contains(key)) continue;
+            Long id = dict.get(key);
+            if (id != null) out.put(key, id);
+            else if (knownMisses.getOrDefault(key, 0L) <= now) misses.add(key);
+        }
+        if (!misses.isEmpty()) {
+            Map<String, Long> found = loadByNames(type, misses);
+            dict.putAll(found);
+            for (String m : misses) {
+                Long id = found.get(m);
+                if (id != null) out.put(m, id);
+                else knownMisses.put(m, now + missTtlMs);
+            }
+            knownMisses.values().removeIf(expiry -> expiry <= now);
+        }
+        return out;
+    }
+
+    // Gọi trong transaction tạo mới; áp dụng sau commit cho node hiện tại và các node khác
+    public void refreshAfterCommit(Type type) {
+        TransactionUtils.afterCommit(() -> {
+            invalidateLocal(type);
+            RedissonClient redisson = redissonProvider.getIfAvailable();
+            if (redisson == null) return;
+            try {
+                RTopic topic = redisson.getTopic(INVALIDATE_TOPIC);
+                topic.publish(type.name());
+            } catch (Exception e) {
+                log.warn("Publish dictionary invalidation {} failed: {}", type, e.getMessage());
+            }
+        });
+    }
+
+    public void invalidateLocal(Type type) {
+        idsByType.remove(type);
+        missesByType.remove(type);
+    }
+
+    private <E> Set<E> references(Type type, Collection<String> names, Function<Long, E> ref) {
+        if (names == null || names.isEmpty()) return Set.of();
+        LinkedHashSet<E> result = new LinkedHashSet<>();
+        for (Long id : idsByName(type, names).values()) {
+            result.add(ref.apply(id));
+        }
+        return result;
+    }
+
+    private Map<String, Long> dictionary(Type type) {
+        return idsByType.computeIfAbsent(type, t -> {
+            Map<String, Long> loaded = new ConcurrentHashMap<>();
+            switch (t) {
+                case CATEGORY -> categoryRepository.findAll().forEach(c -> put(loaded, c.getName(), c.getId()));
+                case SKILL -> skillRepository.findAll().forEach(s -> put(loaded, s.getName(), s.getId()));
+                case LEVEL -> levelRepository.findAll().forEach(l -> put(loaded, l.getName(), l.getId()));
+                case WORK_TYPE -> workTypeRepository.findAll().forEach(w -> put(loaded, w.getName(), w.getId()));
+            }
+            log.debug("Loaded dictionary {} ({} entries)", t, loaded.size());
+            return loaded;
+        });
+    }
+
+    /**
+     * Tên không có trong từ điển: 1 query IN cho cả lô, DB so khớp theo collation của cột
+     * (vd. không dấu khớp có dấu). Dòng trả về có tên trùng đúng tên đã hỏi thì gắn luôn; nếu DB trả
+     * thêm dòng mà tên khác (khớp nhờ collation) thì mới hỏi lại từng tên còn thiếu để biết dòng nào
+     * thuộc tên nào, thay vì chuẩn hoá lại ở Java.
+     */
+    private Map<String, Long> loadByNames(Type type, Collection<String> namesLc) {
+        List<Object[]> rows = switch (type) {
+            case CATEGORY -> categoryRepository.findIdAndNameByNameLcIn(namesLc);
+            case SKILL -> skillRepository.findIdAndNameByNameLcIn(namesLc);
+            case LEVEL -> levelRepository.findIdAndNameByNameLcIn(namesLc);
+            case WORK_TYPE -> workTypeRepository.findIdAndNameByNameLcIn(namesLc);
+        };
+        Map<String, Long> found = new HashMap<>();
+        boolean unmatchedRows = false;
+        for (Object[] row : rows) {
+            String key = key((String) row[1]);
+            if (namesLc.contains(key)) found.putIfAbsent(key, (Long) row[0]);
+            else unmatchedRows = true;
+        }
+        if (!unmatchedRows) return found;
+
+        for (String n : namesLc) {
+            if (found.containsKey(n)) continue;
+            List<Long> ids = switch (type) {
+                case CATEGORY -> categoryRepository.findIdsByNameLc(n);
+                case SKILL -> skillRepository.findIdsByNameLc(n);
+                case LEVEL -> levelRepository.findIdsByNameLc(n);
+                case WORK_TYPE -> workTypeRepository.findIdsByNameLc(n);
+            };
+            if (!ids.isEmpty()) found.put(n, ids.get(0));
+        }
+        return found;
+    }
+
+    private static void put(Map<String, Long> map, String name, Long id) {
+        String key = key(name);
+        if (!key.isEmpty() && id != null) map.putIfAbsent(key, id);
+    }
+
+    private static String key(String name) {
+        return (name == null) ? "" : name.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+}
@@ -1,48 +1,38 @@
 package com.jobhuntly.backend.service.email;
 
+import com.jobhuntly.backend.entity.MailOutbox;
+import com.jobhuntly.backend.entity.enums.MailChannel;
 import jakarta.mail.internet.InternetAddress;
-import jakarta.mail.internet.MimeMessage;
-import org.springframework.beans.factory.annotation.Qualifier;
-import org.springframework.beans.factory.annotation.Value;
+import lombok.RequiredArgsConstructor;
 import org.springframework.lang.Nullable;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * Gửi thư qua outbox ({@link MailOutboxService}): chỉ ghi vào bảng trong transaction hiện tại,
+ * SMTP chạy nền. Message-ID trả về là Message-ID thật của thư khi gửi.
+ */
 @Service
+@RequiredArgsConstructor
 public class EmailService implements EmailSender {
-    private final JavaMailSender mailSender;
-    private final JavaMailSender gmailMailSender;
-
-    public EmailService(
-            JavaMailSender mailSender,
-            @Qualifier("gmailMailSender") JavaMailSender gmailMailSender
-    ) {
-        this.mailSender = mailSender;
-        this.gmailMailSender = gmailMailSender;
-    }
+    private static final String SUPPORT_FROM = "help.jobhuntly@gmail.com";
+    private static final String SUPPORT_NAME = "JobHuntly Support";
 
+    private final MailOutboxService outbox;
 
     @Override
     public void send(String to, String subject, String content) {
-        try {
-            MimeMessage mimeMessage = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, "utf-8");
-
-            helper.setFrom("noreply@jobhuntly.io.vn", "JobHuntly Support");
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(content, true);
-
-            mailSender.send(mimeMessage);
-        } catch (Exception e) {
-            throw new IllegalStateException("Can't send the email", e);
-        }
+        outbox.enqueue(MailOutbox.builder()
+                .channel(MailChannel.DEFAULT)
+                .fromEmail("noreply@jobhuntly.io.vn")
+                .fromName(SUPPORT_NAME)
+                .toEmail(to)
+                .subject(subject)
+                .bodyHtml(content)
+                .build());
     }
 
     @Override
@@ -55,51 +45,19 @@ public class EmailService implements EmailSender {
             throw new IllegalArgumentException("OutgoingEmail.subject is required");
         }
 
-        try {
-            MimeMessage msg = gmailMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(
-                    msg,
-                    true,
-                    StandardCharsets.UTF_8.name()
-            );
-
-            if (mail.from() != null) {
-                helper.setFrom(mail.from());
-            } else {
-                 helper.setFrom(new InternetAddress("help.jobhuntly@gmail.com", "JobHuntly Support", StandardCharsets.UTF_8.name()));
-            }
-
-            helper.setTo(mail.to());
-            helper.setSubject(mail.subject());
-
-            String html = mail.html();
-            String text = mail.text();
-
-            if (html != null && !html.isBlank()) {
-                helper.setText(text != null ? text : "", html);
-            } else {
-                helper.setText(text != null ? text : "", false);
-            }
-
-            if (mail.inReplyTo() != null && !mail.inReplyTo().isBlank()) {
-                msg.setHeader("In-Reply-To", ensureAngle(mail.inReplyTo()));
-            }
-            if (mail.references() != null && !mail.references().isBlank()) {
-                msg.setHeader("References", ensureAngle(mail.references()));
-            }
-
-            // Gửi
-            gmailMailSender.send(msg);
-
-            String messageId = msg.getMessageID();
-            if (messageId == null || messageId.isBlank()) {
-                String domain = "gmail.com";
-                messageId = "<" + java.util.UUID.randomUUID() + "@" + domain + ">";
-            }
-            return new SendResult(messageId);
-        } catch (Exception e) {
-            throw new IllegalStateException("Failed to send email", e);
-        }
+        InternetAddress from = mail.from();
+        String messageId = outbox.enqueue(MailOutbox.builder()
+                .channel(MailChannel.SUPPORT)
+                .fromEmail(from != null ? from.getAddress() : SUPPORT_FROM)
+                .fromName(from != null ? from.getPersonal() : SUPPORT_NAME)
+                .toEmail(mail.to())
+                .subject(mail.subject())
+                .bodyText(mail.text())
+                .bodyHtml(mail.html())
+                .inReplyTo(StringUtils.hasText(mail.inReplyTo()) ? ensureAngle(mail.inReplyTo()) : null)
+                .references(StringUtils.hasText(mail.references()) ? ensureAngle(mail.references()) : null)
+                .build());
+        return new SendResult(messageId);
     }
 
     private String ensureAngle(String v) {
@@ -122,40 +80,25 @@ public class EmailService implements EmailSender {
             @Nullable List<String> cc,
             @Nullable List<String> bcc
     ) {
-        try {
-            MimeMessage mime = gmailMailSender
-                    .createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(mime, false, "utf-8");
-
-            String effFromEmail = StringUtils.hasText(fromEmail) ? fromEmail : "help.jobhuntly@gmail.com";
-            String effFromName  = StringUtils.hasText(fromName)  ? fromName  : "JobHuntly Support";
-
-            helper.setFrom(effFromEmail, effFromName);
-            helper.setTo(to);
-            if (cc != null && !cc.isEmpty()) helper.setCc(cc.toArray(String[]::new));
-            if (bcc != null && !bcc.isEmpty()) helper.setBcc(bcc.toArray(String[]::new));
-            helper.setSubject(subject);
-            helper.setText(htmlBody, true);
-
-            if (StringUtils.hasText(inReplyTo)) {
-                mime.addHeader("In-Reply-To", inReplyTo);
-                if (!StringUtils.hasText(references)) {
-                    references = inReplyTo;
-                } else if (!references.contains(inReplyTo)) {
-                    references = references + " " + inReplyTo;
-                }
-            }
-            if (StringUtils.hasText(references)) {
-                mime.addHeader("References", references);
+        if (StringUtils.hasText(inReplyTo)) {
+            if (!StringUtils.hasText(references)) {
+                references = inReplyTo;
+            } else if (!references.contains(inReplyTo)) {
+                references = references + " " + inReplyTo;
             }
-
-            mime.saveChanges();
-            String messageId = mime.getMessageID();
-
-            gmailMailSender.send(mime);
-            return messageId;
-        } catch (Exception e) {
-            throw new IllegalStateException("Can't send the email with threading", e);
         }
+
+        return outbox.enqueue(MailOutbox.builder()
+                .channel(MailChannel.SUPPORT)
+                .fromEmail(StringUtils.hasText(fromEmail) ? fromEmail : SUPPORT_FROM)
+                .fromName(StringUtils.hasText(fromName) ? fromName : SUPPORT_NAME)
+                .toEmail(to)
+                .cc(cc != null && !cc.isEmpty() ? String.join(",", cc) : null)
+                .bcc(bcc != null && !bcc.isEmpty() ? String.join(",", bcc) : null)
+                .subject(subject)
+                .bodyHtml(htmlBody)
+                .inReplyTo(StringUtils.hasText(inReplyTo) ? inReplyTo : null)
+                .references(StringUtils.hasText(references) ? references : null)
+                .build());
     }
 }
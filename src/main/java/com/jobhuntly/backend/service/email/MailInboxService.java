@@ -12,20 +12,34 @@ import com.jobhuntly.backend.repository.TicketMessageAttachmentRepository;
 import com.jobhuntly.backend.repository.TicketMessageRepository;
 import com.jobhuntly.backend.repository.TicketRepository;
 import com.jobhuntly.backend.service.impl.CloudinaryService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.tika.Tika;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.*;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
 import jakarta.mail.*;
 import jakarta.mail.internet.InternetAddress;
 import jakarta.mail.internet.MimeMessage;
+import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
 import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -42,8 +56,37 @@ public class MailInboxService {
 
     private final TicketMessageAttachmentRepository attachmentRepository;
     private final CloudinaryService cloudinaryService;
+    private final PlatformTransactionManager transactionManager;
 
     private static final Tika TIKA = new Tika();
+    // thư chưa biết ticket lúc upload (ticket chỉ được tạo trong transaction cuối)
+    private static final String INBOUND_FOLDER = "tickets/inbound";
+
+    @Value("${mail.inbound.upload-threads:4}")
+    private int uploadThreads;
+
+    private ThreadPoolExecutor uploadExecutor;
+    private TransactionTemplate tx;
+
+    @PostConstruct
+    void init() {
+        AtomicInteger seq = new AtomicInteger();
+        // hàng đợi đầy thì thread gọi tự upload -> tự giãn tốc, không mất attachment
+        uploadExecutor = new ThreadPoolExecutor(uploadThreads, uploadThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(uploadThreads * 16),
+                r -> {
+                    Thread t = new Thread(r, "mail-upload-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        uploadExecutor.shutdown();
+    }
 
 
     public Page<InboxItemDto> listTickets(String statusStr,
@@ -129,8 +172,22 @@ public class MailInboxService {
         return (s == null || s.isBlank()) ? null : s;
     }
 
-    @Transactional
+    /**
+     * Nhận 1 thư inbound theo từng giai đoạn, không giữ transaction qua các lần gọi mạng:
+     * parse MIME + ghi attachment ra file tạm -> upload song song lên Cloudinary (thư mục chung, chưa cần ticket)
+     * -> thay cid: bằng URL -> tìm/tạo ticket + lưu message + attachment trong 1 transaction ngắn.
+     * Lưu message lỗi (vd. trùng Message-ID khi 2 node cùng nhận 1 thư) thì ticket mới cũng rollback theo.
+     */
     public TicketMessage saveInboundMimeMessage(MimeMessage mm) throws Exception {
+        ParseCtx ctx = parse(mm);
+        try {
+            return ingest(mm, INBOUND_FOLDER, () -> resolveTicket(mm), ctx);
+        } finally {
+            ctx.cleanup();
+        }
+    }
+
+    private Ticket resolveTicket(MimeMessage mm) throws Exception {
         String messageId = ensureAngle(mm.getMessageID());
         String subjectRaw = mm.getSubject() != null ? mm.getSubject() : "(no subject)";
         String subjectNorm = normalizeSubject(subjectRaw);
@@ -172,65 +229,52 @@ public class MailInboxService {
             ticket.setStatus(TicketStatus.OPEN);
             ticket = ticketRepository.save(ticket);
         }
-
-        return saveInboundMimeMessageForTicket(mm, ticket);
+        return ticket;
     }
 
-    @Transactional
     public TicketMessage saveInboundMimeMessageForTicket(MimeMessage mm, Ticket ticket) throws Exception {
+        ParseCtx ctx = parse(mm);
+        try {
+            return ingest(mm, "tickets/" + ticket.getId(), () -> ticket, ctx);
+        } finally {
+            ctx.cleanup();
+        }
+    }
+
+    // Giai đoạn 1: đọc MIME; bytes attachment đi thẳng ra file tạm, không giữ trong heap
+    private ParseCtx parse(MimeMessage mm) throws Exception {
         ParseCtx ctx = new ParseCtx();
-        extractParts(mm, ctx);
+        try {
+            extractParts(mm, ctx);
+        } catch (Exception e) {
+            ctx.cleanup();
+            throw e;
+        }
         log.info("Parsed parts: html?={}, text?={}, attachments={} -> {}",
                 ctx.html != null, ctx.text != null, ctx.attachments.size(),
                 ctx.attachments.stream()
                         .map(a -> a.contentType() + "|" + a.filename() + "|" + (a.inline() ? "inline" : "attach"))
                         .toList());
+        return ctx;
+    }
 
+    private TicketMessage ingest(MimeMessage mm, String folder, Callable<Ticket> ticketOf, ParseCtx ctx) throws Exception {
+        // Giai đoạn 2: upload song song, ngoài transaction
+        List<CompletableFuture<CloudUpload>> futures = new ArrayList<>(ctx.attachments.size());
+        for (AttachmentDraft d : ctx.attachments) {
+            futures.add(CompletableFuture.supplyAsync(() -> upload(d, folder), uploadExecutor));
+        }
         Map<AttachmentDraft, CloudUpload> uploaded = new HashMap<>();
         int uploadedOk = 0;
-
-        for (AttachmentDraft d : ctx.attachments) {
-            String ctLower = (d.contentType != null ? d.contentType.toLowerCase(Locale.ROOT) : "");
-            if ("image/jpg".equals(ctLower) || "image/pjpeg".equals(ctLower) || "image/jpe".equals(ctLower)) {
-                ctLower = "image/jpeg";
-            } else if (ctLower.isBlank()) {
-                ctLower = "application/octet-stream";
-            }
-
-            final String resourceType =
-                    ctLower.startsWith("image/") ? "image" :
-                            ctLower.startsWith("video/") ? "video" : "raw";
-
-            String cleanedFilename = safeFilenameForCloudinary(d.filename);
-
-            String publicId = null;
-            String secureUrl = null;
-
-            try {
-                log.debug("Uploading attachment: file={} ct={} resourceType={}", cleanedFilename, ctLower, resourceType);
-
-                var up = cloudinaryService.uploadBytes(
-                        d.data,
-                        "tickets/" + ticket.getId(),
-                        cleanedFilename,
-                        resourceType
-                );
-                publicId = up.publicId();
-                secureUrl = up.secureUrl();
-                uploadedOk++;
-                log.info("Uploaded attachment OK: filename={} cid={} inline={} -> {}",
-                        d.filename, d.cid, d.inline, secureUrl);
-            } catch (Exception ex) {
-                // vẫn lưu row DB bên dưới dù upload fail
-                log.warn("Upload failed: filename={} ct={} cid={} inline={}. Will save row without URL.",
-                        d.filename, ctLower, d.cid, d.inline, ex);
-            }
-
-            uploaded.put(d, new CloudUpload(publicId, secureUrl));
+        for (int i = 0; i < futures.size(); i++) {
+            AttachmentDraft d = ctx.attachments.get(i);
+            CloudUpload up = futures.get(i).join();
+            uploaded.put(d, up);
+            if (up.secureUrl() != null) uploadedOk++;
 
             // map CID -> URL để thay thế trong HTML nếu là inline image
-            if (d.inline && StringUtils.hasText(d.cid) && StringUtils.hasText(secureUrl)) {
-                ctx.cidToUrl.put(d.cid, secureUrl);
+            if (d.inline && StringUtils.hasText(d.cid) && StringUtils.hasText(up.secureUrl())) {
+                ctx.cidToUrl.put(d.cid, up.secureUrl());
             }
         }
 
@@ -250,41 +294,82 @@ public class MailInboxService {
         String fromEmail = extractFromEmail(mm);
         Instant sentAt   = mm.getSentDate() != null ? mm.getSentDate().toInstant() : Instant.now();
 
-        // --- lưu message INBOUND ---
-        TicketMessage tm = new TicketMessage();
-        tm.setTicket(ticket);
-        tm.setMessageId(messageId);
-        tm.setInReplyTo(inReplyTo);
-        tm.setFromEmail(fromEmail);
-        tm.setSentAt(sentAt);
-        tm.setDirection(MessageDirection.INBOUND);
-        tm.setBodyText(bodyText);
-        tm.setBodyHtml(cleanedHtml);
-        ticketMessageRepository.save(tm);
-
-        // --- lưu attachments (kể cả khi upload fail) ---
-        int savedRows = 0;
-        for (AttachmentDraft d : ctx.attachments) {
-            CloudUpload up = uploaded.get(d);
-            TicketMessageAttachment att = new TicketMessageAttachment();
-            att.setTicketMessage(tm);
-            att.setFilename(d.filename);
-            att.setContentType(d.contentType);
-            att.setSizeBytes(d.size);
-            att.setContentId(d.cid);
-            att.setInline(d.inline);
-            att.setStorageProvider("CLOUDINARY");
-            att.setStoragePublicId(up != null ? up.publicId : null);
-            att.setStorageUrl(up != null ? up.secureUrl : null);
-            attachmentRepository.save(att);
-            savedRows++;
+        // Giai đoạn 3: 1 transaction ngắn cho ticket + message + attachments (kể cả khi upload fail)
+        int finalUploadedOk = uploadedOk;
+        return tx.execute(status -> {
+            Ticket ticket;
+            try {
+                ticket = ticketOf.call();
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to resolve ticket for inbound mail", e);
+            }
+            TicketMessage tm = new TicketMessage();
+            tm.setTicket(ticket);
+            tm.setMessageId(messageId);
+            tm.setInReplyTo(inReplyTo);
+            tm.setFromEmail(fromEmail);
+            tm.setSentAt(sentAt);
+            tm.setDirection(MessageDirection.INBOUND);
+            tm.setBodyText(bodyText);
+            tm.setBodyHtml(cleanedHtml);
+            ticketMessageRepository.save(tm);
+
+            List<TicketMessageAttachment> rows = new ArrayList<>(ctx.attachments.size());
+            for (AttachmentDraft d : ctx.attachments) {
+                CloudUpload up = uploaded.get(d);
+                TicketMessageAttachment att = new TicketMessageAttachment();
+                att.setTicketMessage(tm);
+                att.setFilename(d.filename);
+                att.setContentType(d.contentType);
+                att.setSizeBytes(d.size);
+                att.setContentId(d.cid);
+                att.setInline(d.inline);
+                att.setStorageProvider("CLOUDINARY");
+                att.setStoragePublicId(up != null ? up.publicId : null);
+                att.setStorageUrl(up != null ? up.secureUrl : null);
+                rows.add(att);
+            }
+            attachmentRepository.saveAll(rows);
+            log.info("Uploaded OK: {}/{} attachments; saved rows: {}", finalUploadedOk, ctx.attachments.size(), rows.size());
+
+            // đánh dấu OPEN khi có thư inbound mới
+            ticketService.markOpenOnInbound(ticket.getId());
+            return tm;
+        });
+    }
+
+    private CloudUpload upload(AttachmentDraft d, String folder) {
+        String ctLower = (d.contentType != null ? d.contentType.toLowerCase(Locale.ROOT) : "");
+        if ("image/jpg".equals(ctLower) || "image/pjpeg".equals(ctLower) || "image/jpe".equals(ctLower)) {
+            ctLower = "image/jpeg";
+        } else if (ctLower.isBlank()) {
+            ctLower = "application/octet-stream";
         }
-        log.info("Uploaded OK: {}/{} attachments; saved rows: {}", uploadedOk, ctx.attachments.size(), savedRows);
 
-        // đánh dấu OPEN khi có thư inbound mới
-        ticketService.markOpenOnInbound(ticket.getId());
+        final String resourceType =
+                ctLower.startsWith("image/") ? "image" :
+                        ctLower.startsWith("video/") ? "video" : "raw";
+
+        String cleanedFilename = safeFilenameForCloudinary(d.filename);
 
-        return tm;
+        try {
+            log.debug("Uploading attachment: file={} ct={} resourceType={}", cleanedFilename, ctLower, resourceType);
+
+            var up = cloudinaryService.uploadFile(
+                    d.file.toFile(),
+                    folder,
+                    cleanedFilename,
+                    resourceType
+            );
+            log.info("Uploaded attachment OK: filename={} cid={} inline={} -> {}",
+                    d.filename, d.cid, d.inline, up.secureUrl());
+            return new CloudUpload(up.publicId(), up.secureUrl());
+        } catch (Exception ex) {
+            // vẫn lưu row DB dù upload fail
+            log.warn("Upload failed: filename={} ct={} cid={} inline={}. Will save row without URL.",
+                    d.filename, ctLower, d.cid, d.inline, ex);
+            return new CloudUpload(null, null);
+        }
     }
 
     /** Làm sạch tên file để dùng làm public_id an toàn (ASCII, không ký tự lạ). */
@@ -316,8 +401,17 @@ public class MailInboxService {
         String text;
         Map<String, String> cidToUrl = new HashMap<>();
         List<AttachmentDraft> attachments = new ArrayList<>();
+        List<Path> spooled = new ArrayList<>();
+
+        void cleanup() {
+            for (Path p : spooled) {
+                try {
+                    Files.deleteIfExists(p);
+                } catch (IOException ignored) {}
+            }
+        }
     }
-    private record AttachmentDraft(String filename, String contentType, long size, String cid, boolean inline, byte[] data) {}
+    private record AttachmentDraft(String filename, String contentType, long size, String cid, boolean inline, Path file) {}
     private record CloudUpload(String publicId, String secureUrl) {}
 
     private void extractParts(Part part, ParseCtx ctx) throws Exception {
@@ -348,27 +442,29 @@ public class MailInboxService {
         String[] cids = part.getHeader("Content-ID");
         String cid = (cids != null && cids.length > 0) ? trimAngles(cids[0]) : null;
 
-        byte[] data = readAllBytes(part.getInputStream());
-        if (data == null || data.length == 0) return;
+        Path file = Files.createTempFile("mail-att-", ".bin");
+        ctx.spooled.add(file);
+        long size = spool(part.getInputStream(), file);
+        if (size == 0) return;
 
         String headerCT = part.getContentType();
-        String contentType = determineContentType(headerCT, part.getFileName(), data);
+        String contentType = determineContentType(headerCT, part.getFileName(), file);
         contentType = normalizeImageMime(contentType != null ? contentType.toLowerCase(Locale.ROOT) : null);
         if (!StringUtils.hasText(contentType)) contentType = "application/octet-stream";
 
         String filename = part.getFileName();
-        if (!StringUtils.hasText(filename)) filename = guessFilenameByType(contentType, data);
+        if (!StringUtils.hasText(filename)) filename = guessFilenameByType(contentType);
         filename = safeFilename(filename);
 
         boolean isInline = (cid != null) || "inline".equalsIgnoreCase(disp);
 
-        ctx.attachments.add(new AttachmentDraft(filename, contentType, data.length, cid, isInline, data));
+        ctx.attachments.add(new AttachmentDraft(filename, contentType, size, cid, isInline, file));
         log.debug("ATTACH captured: ct={}, size={}, disp={}, cid={}, filename={}, inline={}",
-                contentType, data.length, disp, cid, filename, isInline);
+                contentType, size, disp, cid, filename, isInline);
     }
 
 
-    private static String guessFilenameByType(String contentType, byte[] data) {
+    private static String guessFilenameByType(String contentType) {
         String ext = null;
         if (StringUtils.hasText(contentType)) {
             String ct = normalizeImageMime(normalizeMime(contentType));
@@ -434,7 +530,7 @@ public class MailInboxService {
         };
     }
 
-    private static String determineContentType(String headerContentType, String filename, byte[] data) {
+    private static String determineContentType(String headerContentType, String filename, Path file) {
         String ct = normalizeMime(headerContentType);
         if (ct != null && !ct.isBlank() && !ct.equals("application/octet-stream")) return ct;
 
@@ -447,9 +543,9 @@ public class MailInboxService {
             } catch (Exception ignored) {}
         }
 
-        if (data != null && data.length > 0) {
+        if (file != null) {
             try {
-                String byBytes = TIKA.detect(data);
+                String byBytes = TIKA.detect(file);
                 if (byBytes != null && !byBytes.isBlank()) {
                     return byBytes.toLowerCase(Locale.ROOT);
                 }
@@ -497,8 +593,8 @@ public class MailInboxService {
         return t;
     }
 
-    private static byte[] readAllBytes(InputStream is) throws Exception {
-        try (is) { return is.readAllBytes(); }
+    private static long spool(InputStream is, Path target) throws Exception {
+        try (is) { return Files.copy(is, target, StandardCopyOption.REPLACE_EXISTING); }
     }
 
     private static int firstIndexOfAny(String s, String... regexes) {
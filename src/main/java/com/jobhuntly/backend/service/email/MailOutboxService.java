@@ -0,0 +1,415 @@
+package com.jobhuntly.backend.service.email;
+
+import com.jobhuntly.backend.entity.MailOutbox;
+import com.jobhuntly.backend.entity.enums.MailChannel;
+import com.jobhuntly.backend.entity.enums.MailOutboxStatus;
+import com.jobhuntly.backend.repository.MailOutboxRepository;
+import com.jobhuntly.backend.util.TransactionUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.smtp.SMTPAddressFailedException;
+import org.eclipse.angus.mail.smtp.SMTPSendFailedException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Outbox cho toàn bộ thư gửi đi.
+ * <ul>
+ *   <li>{@link #enqueue} chỉ ghi 1 dòng {@code mail_outbox} trong transaction của bên gọi -
+ *   rollback thì thư cũng không đi; request không còn chờ SMTP.</li>
+ *   <li>1 thread nền drain theo lô ({@code FOR UPDATE SKIP LOCKED} + lease), gửi nhiều thư trên cùng 1
+ *   kết nối SMTP và giữ kết nối đó cho lô sau tới khi rảnh quá {@code keep-alive-ms}.</li>
+ *   <li>Lỗi tạm thời: retry với backoff lũy thừa + jitter; lỗi 5xx hoặc quá {@code max-attempts} thì DEAD.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+public class MailOutboxService {
+
+    private final MailOutboxRepository outboxRepo;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final Map<MailChannel, JavaMailSenderImpl> senders = new EnumMap<>(MailChannel.class);
+
+    @Value("${app.mail-outbox.batch-size:20}")
+    private int batchSize;
+
+    @Value("${app.mail-outbox.poll-ms:5000}")
+    private long pollMs;
+
+    @Value("${app.mail-outbox.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    @Value("${app.mail-outbox.lease-ms:120000}")
+    private long leaseMs;
+
+    @Value("${app.mail.smtp.connect-timeout-ms:10000}")
+    private long smtpConnectTimeoutMs;
+
+    @Value("${app.mail.smtp.timeout-ms:30000}")
+    private long smtpTimeoutMs;
+
+    @Value("${app.mail-outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.mail-outbox.backoff-initial-ms:10000}")
+    private long backoffInitialMs;
+
+    @Value("${app.mail-outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    private TransactionTemplate tx;
+    private Thread worker;
+    private volatile boolean running = true;
+    private final Semaphore wakeups = new Semaphore(0);
+    // kết nối SMTP đang giữ theo channel (chỉ thread worker dùng)
+    private final Map<MailChannel, Transport> transports = new EnumMap<>(MailChannel.class);
+    private final Map<MailChannel, Long> lastUsed = new EnumMap<>(MailChannel.class);
+    private final AtomicLong pending = new AtomicLong();
+    private long lastHousekeeping;
+    // lô đang gửi và hạn lease hiện tại của nó (chỉ thread worker dùng)
+    private List<MailOutbox> inFlight = List.of();
+    private Instant leaseUntil = Instant.EPOCH;
+
+    private Counter sent;
+    private Counter retried;
+    private Counter dead;
+    private Counter connections;
+    private Timer sendLatency;
+    private Timer deliveryLag;
+
+    public MailOutboxService(
+            MailOutboxRepository outboxRepo,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            JavaMailSender mailSender,
+            @Qualifier("gmailMailSender") JavaMailSender gmailMailSender
+    ) {
+        this.outboxRepo = outboxRepo;
+        this.transactionManager = transactionManager;
+        this.meterRegistry = meterRegistry;
+        this.senders.put(MailChannel.DEFAULT, asImpl(mailSender));
+        this.senders.put(MailChannel.SUPPORT, asImpl(gmailMailSender));
+    }
+
+    private static JavaMailSenderImpl asImpl(JavaMailSender sender) {
+        if (sender instanceof JavaMailSenderImpl impl) return impl;
+        throw new IllegalStateException("Mail outbox requires JavaMailSenderImpl, got " + sender.getClass().getName());
+    }
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+        sent = meterRegistry.counter("mail.outbox.sent");
+        retried = meterRegistry.counter("mail.outbox.retried");
+        dead = meterRegistry.counter("mail.outbox.dead");
+        connections = meterRegistry.counter("mail.outbox.connections");
+        sendLatency = meterRegistry.timer("mail.outbox.send");
+        deliveryLag = meterRegistry.timer("mail.outbox.lag");
+        Gauge.builder("mail.outbox.pending", pending, AtomicLong::get).register(meterRegistry);
+
+        worker = new Thread(this::drainLoop, "mail-outbox");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        running = false;
+        worker.interrupt();
+    }
+
+    /**
+     * Ghi thư vào outbox trong transaction hiện tại (không có thì tự commit ngay).
+     * Trả về Message-ID sẽ dùng khi gửi.
+     */
+    public String enqueue(MailOutbox mail) {
+        Objects.requireNonNull(mail, "MailOutbox must not be null");
+        if (!StringUtils.hasText(mail.getToEmail())) {
+            throw new IllegalArgumentException("Mail recipient is required");
+        }
+        if (!StringUtils.hasText(mail.getSubject())) {
+            throw new IllegalArgumentException("Mail subject is required");
+        }
+        if (mail.getChannel() == null) mail.setChannel(MailChannel.DEFAULT);
+        if (!StringUtils.hasText(mail.getMessageId())) {
+            mail.setMessageId(newMessageId(mail.getFromEmail()));
+        }
+        Instant now = Instant.now();
+        mail.setStatus(MailOutboxStatus.PENDING);
+        mail.setAttempts(0);
+        mail.setNextAttemptAt(now);
+        mail.setCreatedAt(now);
+        outboxRepo.save(mail);
+        pending.incrementAndGet();
+
+        TransactionUtils.afterCommit(wakeups::release);
+        return mail.getMessageId();
+    }
+
+    private static String newMessageId(String fromEmail) {
+        String domain = "jobhuntly.io.vn";
+        if (fromEmail != null && fromEmail.indexOf('@') > 0) {
+            domain = fromEmail.substring(fromEmail.indexOf('@') + 1);
+        }
+        return "<" + UUID.randomUUID() + "@" + domain + ">";
+    }
+
+    private void drainLoop() {
+        while (running) {
+            try {
+                housekeeping();
+                int n = drainOnce();
+                if (n < batchSize) {
+                    closeIdleTransports();
+                    wakeups.tryAcquire(pollMs, TimeUnit.MILLISECONDS);
+                    wakeups.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                break;
+            } catch (Exception e) {
+                log.error("Mail outbox drain failed", e);
+                sleepQuietly(pollMs);
+            }
+        }
+        transports.keySet().forEach(this::closeTransport);
+    }
+
+    // mỗi phút: trả lại lease quá hạn, cập nhật gauge pending
+    private void housekeeping() {
+        long now = System.currentTimeMillis();
+        if (now - lastHousekeeping < 60_000) return;
+        lastHousekeeping = now;
+        Integer released = tx.execute(s -> outboxRepo.releaseExpiredLeases(Instant.now()));
+        if (released != null && released > 0) {
+            log.warn("Released {} expired mail outbox lease(s)", released);
+        }
+        pending.set(outboxRepo.countByStatus(MailOutboxStatus.PENDING));
+    }
+
+    private int drainOnce() {
+        Instant now = Instant.now();
+        List<MailOutbox> batch = tx.execute(s -> {
+            List<MailOutbox> due = outboxRepo.lockDue(now, batchSize);
+            for (MailOutbox m : due) {
+                m.setStatus(MailOutboxStatus.SENDING);
+                m.setNextAttemptAt(now.plusMillis(leaseMs));
+            }
+            return due;
+        });
+        if (batch == null || batch.isEmpty()) return 0;
+        inFlight = batch;
+        leaseUntil = now.plusMillis(leaseMs);
+
+        Map<MailChannel, List<MailOutbox>> byChannel = new EnumMap<>(MailChannel.class);
+        for (MailOutbox m : batch) {
+            byChannel.computeIfAbsent(m.getChannel(), c -> new ArrayList<>()).add(m);
+        }
+        byChannel.forEach(this::sendAll);
+
+        inFlight = List.of();
+        tx.executeWithoutResult(s -> outboxRepo.saveAll(batch));
+        pending.updateAndGet(p -> Math.max(0, p - batch.stream()
+                .filter(m -> m.getStatus() != MailOutboxStatus.PENDING).count()));
+        return batch.size();
+    }
+
+    private void sendAll(MailChannel channel, List<MailOutbox> mails) {
+        JavaMailSenderImpl sender = senders.get(channel);
+        for (int i = 0; i < mails.size(); i++) {
+            MailOutbox m = mails.get(i);
+            MimeMessage msg;
+            try {
+                msg = build(sender.getSession(), m);
+            } catch (Exception e) {
+                // nội dung hỏng thì gửi lại cũng vậy
+                markDead(m, e);
+                continue;
+            }
+            renewLeaseIfNeeded();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            try {
+                transport(channel).sendMessage(msg, msg.getAllRecipients());
+                sample.stop(sendLatency);
+                markSent(m);
+            } catch (SendFailedException e) {
+                // server từ chối thư/người nhận, kết nối vẫn dùng được
+                if (smtpCode(e) >= 500) markDead(m, e);
+                else markRetry(m, e);
+            } catch (MessagingException e) {
+                // lỗi kết nối: bỏ kết nối này, các thư còn lại của lô chờ lượt sau
+                closeTransport(channel);
+                markRetry(m, e);
+                for (int j = i + 1; j < mails.size(); j++) {
+                    MailOutbox rest = mails.get(j);
+                    rest.setStatus(MailOutboxStatus.PENDING);
+                    rest.setNextAttemptAt(m.getNextAttemptAt());
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Lease phải còn đủ cho 1 lần gửi chậm nhất (connect + đọc + ghi đều chạm timeout),
+     * nếu không thì gia hạn cho các thư còn SENDING của lô trước khi gửi tiếp.
+     */
+    private void renewLeaseIfNeeded() {
+        Instant now = Instant.now();
+        long worstSendMs = smtpConnectTimeoutMs + 2 * smtpTimeoutMs;
+        if (now.plusMillis(worstSendMs).isBefore(leaseUntil)) return;
+        List<Long> ids = inFlight.stream()
+                .filter(m -> m.getStatus() == MailOutboxStatus.SENDING)
+                .map(MailOutbox::getId)
+                .toList();
+        if (ids.isEmpty()) return;
+        Instant until = now.plusMillis(Math.max(leaseMs, worstSendMs * 2));
+        tx.executeWithoutResult(s -> outboxRepo.extendLeases(ids, until));
+        leaseUntil = until;
+    }
+
+    private static int smtpCode(SendFailedException e) {
+        if (e instanceof SMTPSendFailedException sf) return sf.getReturnCode();
+        if (e.getNextException() instanceof SMTPAddressFailedException af) return af.getReturnCode();
+        return 0;
+    }
+
+    private Transport transport(MailChannel channel) throws MessagingException {
+        Transport t = transports.get(channel);
+        if (t == null || !t.isConnected()) {
+            JavaMailSenderImpl sender = senders.get(channel);
+            String protocol = sender.getProtocol() != null ? sender.getProtocol() : "smtp";
+            t = sender.getSession().getTransport(protocol);
+            t.connect(sender.getHost(), sender.getPort(), sender.getUsername(), sender.getPassword());
+            transports.put(channel, t);
+            connections.increment();
+        }
+        lastUsed.put(channel, System.currentTimeMillis());
+        return t;
+    }
+
+    private void closeIdleTransports() {
+        long now = System.currentTimeMillis();
+        for (MailChannel c : new ArrayList<>(transports.keySet())) {
+            if (now - lastUsed.getOrDefault(c, 0L) > keepAliveMs) closeTransport(c);
+        }
+    }
+
+    private void closeTransport(MailChannel channel) {
+        Transport t = transports.remove(channel);
+        if (t == null) return;
+        try {
+            t.close();
+        } catch (Exception ignored) {}
+    }
+
+    private static MimeMessage build(Session session, MailOutbox m) throws Exception {
+        String messageId = m.getMessageId();
+        // giữ Message-ID đã trả cho bên gọi thay vì để JavaMail sinh mới lúc saveChanges()
+        MimeMessage msg = new MimeMessage(session) {
+            @Override
+            protected void updateMessageID() throws MessagingException {
+                setHeader("Message-ID", messageId);
+            }
+        };
+        boolean multipart = StringUtils.hasText(m.getBodyHtml()) || m.getAttachmentData() != null;
+        MimeMessageHelper helper = new MimeMessageHelper(msg, multipart, StandardCharsets.UTF_8.name());
+
+        if (StringUtils.hasText(m.getFromName())) helper.setFrom(m.getFromEmail(), m.getFromName());
+        else helper.setFrom(m.getFromEmail());
+        helper.setTo(m.getToEmail());
+        if (StringUtils.hasText(m.getCc())) helper.setCc(StringUtils.commaDelimitedListToStringArray(m.getCc()));
+        if (StringUtils.hasText(m.getBcc())) helper.setBcc(StringUtils.commaDelimitedListToStringArray(m.getBcc()));
+        helper.setSubject(m.getSubject());
+
+        String text = m.getBodyText() != null ? m.getBodyText() : "";
+        if (StringUtils.hasText(m.getBodyHtml())) {
+            if (StringUtils.hasText(text)) helper.setText(text, m.getBodyHtml());
+            else helper.setText(m.getBodyHtml(), true);
+        } else {
+            helper.setText(text, false);
+        }
+        if (m.getAttachmentData() != null) {
+            helper.addAttachment(m.getAttachmentName(), new ByteArrayResource(m.getAttachmentData()), m.getAttachmentType());
+        }
+
+        if (StringUtils.hasText(m.getInReplyTo())) msg.setHeader("In-Reply-To", m.getInReplyTo());
+        if (StringUtils.hasText(m.getReferences())) msg.setHeader("References", m.getReferences());
+        msg.saveChanges();
+        return msg;
+    }
+
+    private void markSent(MailOutbox m) {
+        Instant now = Instant.now();
+        m.setStatus(MailOutboxStatus.SENT);
+        m.setAttempts(m.getAttempts() + 1);
+        m.setSentAt(now);
+        m.setLastError(null);
+        sent.increment();
+        deliveryLag.record(Duration.between(m.getCreatedAt(), now));
+    }
+
+    private void markRetry(MailOutbox m, Exception e) {
+        int attempts = m.getAttempts() + 1;
+        m.setAttempts(attempts);
+        m.setLastError(truncate(e.getMessage()));
+        if (attempts >= maxAttempts) {
+            markDead(m, e);
+            return;
+        }
+        long delay = Math.min(backoffMaxMs, backoffInitialMs << Math.min(attempts - 1, 20));
+        delay += ThreadLocalRandom.current().nextLong(delay / 4 + 1);
+        m.setStatus(MailOutboxStatus.PENDING);
+        m.setNextAttemptAt(Instant.now().plusMillis(delay));
+        retried.increment();
+        log.warn("Mail {} to {} failed (attempt {}), retry in {} ms: {}",
+                m.getId(), m.getToEmail(), attempts, delay, e.getMessage());
+    }
+
+    private void markDead(MailOutbox m, Exception e) {
+        m.setStatus(MailOutboxStatus.DEAD);
+        m.setLastError(truncate(e.getMessage()));
+        dead.increment();
+        log.error("Mail {} to {} moved to dead-letter: {}", m.getId(), m.getToEmail(), e.getMessage());
+    }
+
+    private static String truncate(String s) {
+        if (s == null) return null;
+        return s.length() <= 1000 ? s : s.substring(0, 1000);
+    }
+
+    private static void sleepQuietly(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
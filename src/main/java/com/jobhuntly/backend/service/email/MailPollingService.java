@@ -1,5 +1,7 @@
 package com.jobhuntly.backend.service.email;
 
+import com.jobhuntly.backend.entity.MailSyncState;
+import com.jobhuntly.backend.repository.MailSyncStateRepository;
 import com.jobhuntly.backend.repository.TicketMessageRepository;
 import jakarta.annotation.PreDestroy;
 import jakarta.mail.*;
@@ -11,6 +13,11 @@ import jakarta.mail.search.ReceivedDateTerm;
 import jakarta.mail.search.SearchTerm;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.eclipse.angus.mail.imap.IMAPFolder;
+import org.eclipse.angus.mail.imap.IMAPStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
@@ -18,20 +25,56 @@ import org.springframework.util.StringUtils;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.Date;
-import java.util.Properties;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+/**
+ * Nhận thư IMAP vào ticket.
+ * <ul>
+ *   <li>Mặc định chạy IMAP IDLE trên 1 thread riêng: server báo có thư mới thì lấy ngay các UID lớn hơn
+ *   high-water mark đã lưu ({@code mail_sync_state}), prefetch envelope + header theo lô bằng FetchProfile.</li>
+ *   <li>Server không hỗ trợ IDLE (hoặc tắt {@code mail.imap.idle.enabled}) thì job định kỳ làm cùng việc đó
+ *   theo {@code mail.poll.fixed-delay-ms}; khi IDLE đang chạy, job định kỳ bỏ qua.</li>
+ *   <li>{@link #pollNow()} (thủ công) giữ cách cũ: quét UNSEEN / thư 24h gần nhất, lọc trùng theo Message-ID.</li>
+ * </ul>
+ */
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class MailPollingService {
+    // số lần lỗi liên tiếp của 1 UID trước khi bỏ qua để không chặn các thư sau
+    private static final int MAX_ATTEMPTS_PER_UID = 3;
+
     private final AtomicBoolean polling = new AtomicBoolean(false);
     private final ImapProperties imapProperties;
     private final MailInboxService mailInboxService;
     private final TicketMessageRepository ticketMessageRepository;
+    private final MailSyncStateRepository syncStateRepository;
+
+    @Value("${mail.imap.idle.enabled:true}")
+    private boolean idleEnabled;
+
+    // server thường cắt IDLE sau ~30 phút -> chủ động làm mới sớm hơn
+    @Value("${mail.imap.idle.refresh-ms:540000}")
+    private long idleRefreshMs;
+
+    @Value("${mail.imap.idle.reconnect-max-ms:300000}")
+    private long reconnectMaxMs;
 
     private volatile Store cachedStore;
+    private volatile boolean idleActive;
+    private volatile boolean running = true;
+    private Thread idleThread;
+    private final ScheduledExecutorService idleRefresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "imap-idle-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<Long, Integer> failedAttempts = new HashMap<>();
 
     public int pollNow() {
         if (!polling.compareAndSet(false, true)) {
@@ -50,19 +93,189 @@ public class MailPollingService {
 
     @Scheduled(fixedDelayString = "${mail.poll.fixed-delay-ms:30000}")
     public void scheduledPoll() {
+        if (idleActive) return;
         if (!polling.compareAndSet(false, true)) {
             log.info("Poll is already running; skip scheduled run.");
             return;
         }
+        Store store = null;
+        Folder inbox = null;
         try {
-            log.info("Starting IMAP poll (scheduled)");
-            int processed = pollInternal(false);
-            log.info("Scheduled IMAP poll finished, processed: {}", processed);
+            store = connect();
+            inbox = store.getFolder(imapProperties.getFolder());
+            if (inbox == null || !inbox.exists()) {
+                log.warn("IMAP folder '{}' not found", imapProperties.getFolder());
+                return;
+            }
+            inbox.open(Folder.READ_WRITE);
+            int processed = syncNewMessages(inbox);
+            if (processed > 0) log.info("Scheduled IMAP poll finished, processed: {}", processed);
+        } catch (Exception e) {
+            log.error("IMAP poll error", e);
         } finally {
+            safeClose(inbox);
             polling.set(false);
         }
     }
 
+    @EventListener(ApplicationReadyEvent.class)
+    public void startIdle() {
+        if (!idleEnabled || !StringUtils.hasText(imapProperties.getHost())) return;
+        idleThread = new Thread(this::idleLoop, "imap-idle");
+        idleThread.setDaemon(true);
+        idleThread.start();
+    }
+
+    private void idleLoop() {
+        long backoffMs = 5_000;
+        while (running) {
+            Store store = null;
+            IMAPFolder folder = null;
+            ScheduledFuture<?> refresh = null;
+            try {
+                store = openStore();
+                if (!(store instanceof IMAPStore imapStore) || !imapStore.hasCapability("IDLE")) {
+                    log.info("IMAP server does not support IDLE; using scheduled polling");
+                    return;
+                }
+                Folder f = store.getFolder(imapProperties.getFolder());
+                if (!(f instanceof IMAPFolder imapFolder) || !f.exists()) {
+                    log.warn("IMAP folder '{}' not usable for IDLE; using scheduled polling", imapProperties.getFolder());
+                    return;
+                }
+                folder = imapFolder;
+                folder.open(Folder.READ_WRITE);
+                idleActive = true;
+                backoffMs = 5_000;
+                log.info("IMAP IDLE started on folder {}", imapProperties.getFolder());
+
+                // gọi NOOP từ thread khác sẽ kết thúc IDLE hiện tại, vòng lặp vào lại IDLE mới
+                IMAPFolder idleFolder = folder;
+                refresh = idleRefresher.scheduleWithFixedDelay(() -> {
+                    try {
+                        idleFolder.doCommand(p -> {
+                            p.simpleCommand("NOOP", null);
+                            return null;
+                        });
+                    } catch (Exception e) {
+                        log.debug("IMAP IDLE refresh failed: {}", e.getMessage());
+                    }
+                }, idleRefreshMs, idleRefreshMs, TimeUnit.MILLISECONDS);
+
+                while (running && folder.isOpen()) {
+                    syncNewMessages(folder);
+                    folder.idle(true); // trả về khi có thông báo từ server (thư mới, flag...) hoặc bị NOOP cắt
+                }
+            } catch (Exception e) {
+                if (!running) break;
+                log.warn("IMAP IDLE interrupted: {}; reconnecting in {} ms", e.getMessage(), backoffMs);
+            } finally {
+                idleActive = false;
+                if (refresh != null) refresh.cancel(false);
+                safeClose(folder);
+                safeClose(store);
+            }
+            if (!running) break;
+            // trong lúc chờ kết nối lại, job định kỳ tiếp quản
+            sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, reconnectMaxMs);
+        }
+    }
+
+    /**
+     * Lấy các thư có UID > high-water mark, prefetch header theo lô, lọc trùng Message-ID bằng 1 query
+     * rồi ingest theo thứ tự UID; mark được lưu sau mỗi thư.
+     */
+    private synchronized int syncNewMessages(Folder folder) throws Exception {
+        UIDFolder uidFolder = (UIDFolder) folder;
+        long uidValidity = uidFolder.getUIDValidity();
+        String key = folderKey();
+        MailSyncState state = syncStateRepository.findById(key).orElse(null);
+
+        if (state == null || state.getUidValidity() != uidValidity) {
+            state = new MailSyncState(key, uidValidity, 0L, true, Instant.now());
+        }
+
+        Message[] candidates;
+        boolean seeding = state.isSeeding();
+        if (seeding) {
+            // lần đầu (hoặc mailbox bị tạo lại): xử lý UNSEEN như trước tới khi trọn 1 lượt,
+            // lượt lỗi giữa chừng thì lần sau vẫn quét UNSEEN (không nhận lại thư đã đọc)
+            candidates = folder.search(new FlagTerm(new Flags(Flag.SEEN), false));
+        } else {
+            candidates = uidFolder.getMessagesByUID(state.getLastUid() + 1, UIDFolder.LASTUID);
+        }
+
+        FetchProfile fp = new FetchProfile();
+        fp.add(FetchProfile.Item.ENVELOPE);
+        fp.add(FetchProfile.Item.FLAGS);
+        fp.add(UIDFolder.FetchProfileItem.UID);
+        fp.add("Message-ID");
+        fp.add("In-Reply-To");
+        fp.add("References");
+        folder.fetch(candidates, fp);
+
+        long lastUid = state.getLastUid();
+        List<Message> fresh = new ArrayList<>();
+        Set<String> messageIds = new HashSet<>();
+        for (Message m : candidates) {
+            // "n:*" luôn trả về ít nhất thư cuối, kể cả khi UID của nó <= n
+            if (uidFolder.getUID(m) <= lastUid) continue;
+            fresh.add(m);
+            if (m instanceof MimeMessage mm) {
+                String mid = ensureAngle(mm.getMessageID());
+                if (mid != null) messageIds.add(mid);
+            }
+        }
+        fresh.sort(Comparator.comparingLong(m -> uidOf(uidFolder, m)));
+        Set<String> existing = messageIds.isEmpty()
+                ? new HashSet<>()
+                : new HashSet<>(ticketMessageRepository.findExistingMessageIds(messageIds));
+
+        int processed = 0;
+        boolean complete = true;
+        for (Message m : fresh) {
+            long uid = uidFolder.getUID(m);
+            if (m instanceof MimeMessage mm) {
+                String mid = ensureAngle(mm.getMessageID());
+                if (mid == null || !existing.contains(mid)) {
+                    try {
+                        mailInboxService.saveInboundMimeMessage(mm);
+                        processed++;
+                        // thư trùng Message-ID trong cùng lô (vd. gửi lại) bị bỏ qua
+                        if (mid != null) existing.add(mid);
+                        failedAttempts.remove(uid);
+                        markSeenIfNeeded(m);
+                    } catch (Exception ex) {
+                        int attempts = failedAttempts.merge(uid, 1, Integer::sum);
+                        log.error("Failed to ingest uid={} message-id={} (attempt {})", uid, mid, attempts, ex);
+                        // giữ mark ở đây để lần sau thử lại, trừ khi đã lỗi quá nhiều lần
+                        if (attempts < MAX_ATTEMPTS_PER_UID) {
+                            complete = false;
+                            break;
+                        }
+                        failedAttempts.remove(uid);
+                    }
+                } else {
+                    markSeenIfNeeded(m);
+                }
+            }
+            state.setLastUid(uid);
+            state.setUpdatedAt(Instant.now());
+            syncStateRepository.save(state);
+        }
+
+        if (seeding && complete) {
+            // thư đã đọc trước đó không lấy lại: đặt mark tại UID cao nhất hiện có, từ giờ đọc theo UID
+            long uidNext = uidFolder.getUIDNext();
+            state.setLastUid(Math.max(state.getLastUid(), uidNext - 1));
+            state.setSeeding(false);
+            state.setUpdatedAt(Instant.now());
+            syncStateRepository.save(state);
+        }
+        return processed;
+    }
+
     private int pollInternal(boolean manual) {
         int processed = 0;
         Store store = null;
@@ -108,7 +321,13 @@ public class MailPollingService {
 
     private Store connect() throws Exception {
         if (cachedStore != null && cachedStore.isConnected()) return cachedStore;
+        Store store = openStore();
+        this.cachedStore = store;
+        return store;
+    }
 
+    // IDLE giữ riêng 1 kết nối, không dùng chung với poll
+    private Store openStore() throws Exception {
         Properties props = new Properties();
         props.put("mail.store.protocol", "imaps");
         props.put("mail.imaps.host", imapProperties.getHost());
@@ -118,7 +337,6 @@ public class MailPollingService {
         Session session = Session.getInstance(props);
         Store store = session.getStore("imaps");
         store.connect(imapProperties.getHost(), imapProperties.getUsername(), imapProperties.getPassword());
-        this.cachedStore = store;
         return store;
     }
 
@@ -147,6 +365,26 @@ public class MailPollingService {
         }
     }
 
+    private String folderKey() {
+        return imapProperties.getUsername() + "@" + imapProperties.getHost() + "/" + imapProperties.getFolder();
+    }
+
+    private static long uidOf(UIDFolder folder, Message m) {
+        try {
+            return folder.getUID(m);
+        } catch (MessagingException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private static void safeClose(Folder folder) {
         if (folder == null) return;
         try {
@@ -162,6 +400,9 @@ public class MailPollingService {
 
     @PreDestroy
     public void closeStore() {
+        running = false;
+        idleRefresher.shutdownNow();
+        if (idleThread != null) idleThread.interrupt();
         if (cachedStore != null) {
             try { cachedStore.close(); } catch (Exception ignored) {}
         }
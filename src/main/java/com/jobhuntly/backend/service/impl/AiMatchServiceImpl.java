@@ -2,37 +2,62 @@ package com.jobhuntly.backend.service.impl;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jobhuntly.backend.dto.ai.BatchMatchItem;
 import com.jobhuntly.backend.dto.ai.MatchResponse;
 import com.jobhuntly.backend.dto.response.JobResponse;
 import com.jobhuntly.backend.dto.response.ProfileCombinedResponse;
-import com.jobhuntly.backend.entity.Application;
 import com.jobhuntly.backend.repository.ApplicationRepository;
+import com.jobhuntly.backend.repository.JobRepository;
 import com.jobhuntly.backend.service.AiMatchService;
 import com.jobhuntly.backend.service.JobService;
 import com.jobhuntly.backend.service.ProfileService;
+import com.jobhuntly.backend.service.cache.ResumeBlobCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.*;
-import org.springframework.stereotype.Service;
-import org.springframework.web.client.HttpClientErrorException;
-import org.springframework.web.client.HttpServerErrorException;
-import org.springframework.web.client.RestClientResponseException;
-import org.springframework.web.client.RestTemplate;
 import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.MultipartBodyBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.*;
 import java.util.Base64;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 public class AiMatchServiceImpl implements AiMatchService {
 
     private final JobService jobService;
     private final ProfileService profileService;
     private final ApplicationRepository applicationRepository;
-    private final RestTemplate rt = new RestTemplate();
+    private final WebClient webClient;
+    private final AiMatchSingleFlight singleFlight;
+    private final JobRepository jobRepository;
+    private final ResumeBlobCache resumeCache;
+    private final AiPreScorer preScorer;
+    private final AtomicLong nextGeminiSlot = new AtomicLong(System.nanoTime());
     private final ObjectMapper mapper = new ObjectMapper();
+    private final AtomicInteger inFlight = new AtomicInteger();
     private final Cache matchCache;
     private final Cache bypassCache;
 
@@ -42,79 +67,205 @@ public class AiMatchServiceImpl implements AiMatchService {
     private String model;
     @Value("${gemini.endpoint}")
     private String endpoint;
-
-    public AiMatchServiceImpl(JobService jobService, ProfileService profileService, ApplicationRepository applicationRepository, CacheManager cacheManager) {
+    @Value("${gemini.max-concurrent:8}")
+    private int maxConcurrent;
+    @Value("${gemini.max-retries:2}")
+    private int maxRetries;
+    @Value("${gemini.batch.concurrency:4}")
+    private int batchConcurrency;
+    @Value("${gemini.batch.rate-per-second:2}")
+    private int batchRatePerSecond;
+    @Value("${gemini.batch.page-size:200}")
+    private int batchPageSize;
+
+    public AiMatchServiceImpl(JobService jobService, ProfileService profileService, ApplicationRepository applicationRepository, CacheManager cacheManager,
+                              @Qualifier("aiWebClient") WebClient webClient, AiMatchSingleFlight singleFlight,
+                              JobRepository jobRepository, ResumeBlobCache resumeCache,
+                              AiPreScorer preScorer) {
         this.jobService = jobService;
         this.profileService = profileService;
         this.applicationRepository = applicationRepository;
+        this.webClient = webClient;
+        this.singleFlight = singleFlight;
+        this.jobRepository = jobRepository;
+        this.resumeCache = resumeCache;
+        this.preScorer = preScorer;
         this.matchCache = cacheManager.getCache(com.jobhuntly.backend.constant.CacheConstant.AI_MATCH);
         this.bypassCache = cacheManager.getCache(com.jobhuntly.backend.constant.CacheConstant.AI_MATCH_BYPASS);
     }
 
     @Override
-    public MatchResponse matchCandidateToJob(Long userId, Long jobId, String resumeFileId, String resumeText, boolean useFileApi) {
-        // 1) Lấy JD text
-        String jd = buildJobDescription(jobId);
-
-        // 2) Quyết định nguồn CV
-        byte[] resumePdfBytes = loadResumePdfBytes(userId, jobId, resumeFileId);
-        if (resumePdfBytes == null && (resumeText == null || resumeText.isBlank())) {
-            ProfileCombinedResponse p = profileService.getCombinedProfile(userId);
-            resumeText = buildResumeTextFromProfile(p);
-        }
+    public Mono<MatchResponse> matchCandidateToJob(Long userId, Long jobId, String resumeFileId, String resumeText, boolean useFileApi) {
+        // 1) JD + chấm sơ bộ theo profile + danh sách URL CV ứng viên (JPA -> chạy trên boundedElastic)
+        return blocking(() -> {
+                    JobContext job = jobContext(jobId);
+                    List<ResumeRef> cvs = resumeRefs(userId, jobId, resumeFileId);
+                    // có CV / resume text thì Gemini chấm trên chính CV, không loại sớm theo profile
+                    boolean hasResume = !isBlank(resumeText) || cvs.stream().anyMatch(r -> !isBlank(r.url()));
+                    return new Prepared(job.jd(), cvs, hasResume ? null : preScore(userId, job.facts()));
+                })
+                // 2) rõ ràng không hợp -> trả luôn; không thì CV PDF nếu có (cache đĩa hoặc tải), không nữa thì text.
+                // CV nào không lấy được bytes (file cache bị bỏ + tải lại lỗi) thì thử CV kế tiếp
+                .flatMap(p -> p.preScore() != null ? Mono.just(p.preScore()) : Flux.fromIterable(p.cvs())
+                        .concatMap(ref -> resolveResume(ref)
+                                .flatMap(cv -> scorePdf(userId, jobId, p.jd(), cv, useFileApi)))
+                        .next()
+                        .switchIfEmpty(Mono.defer(() -> resumeTextOrProfile(userId, resumeText)
+                                .flatMap(text -> scoreText(userId, jobId, p.jd(), text)))))
+                .onErrorResume(this::toErrorResponse);
+    }
 
-        // Tính cache key và kiểm tra cache trước
-        String hash = resumePdfBytes != null ? sha256(resumePdfBytes) : sha256(safeTrim(resumeText));
-        String cKey = cacheKey(userId, jobId, hash);
-        MatchResponse cached = getFromCache(cKey);
-        if (cached != null) return cached;
-        // Kiểm tra bypass-once
-        boolean bypass = consumeBypass(cKey);
+    // MỚI: chấm với file vừa upload
+    @Override
+    public Mono<MatchResponse> matchByUploadedFile(Long userId, Long jobId, byte[] pdfBytes, boolean useFileApi) {
+        return blocking(() -> jobContext(jobId).jd())
+                .flatMap(jd -> scorePdf(userId, jobId, jd, new Resume(sha256(pdfBytes), Mono.just(pdfBytes)), useFileApi))
+                .onErrorResume(this::toErrorResponse);
+    }
 
-        // 3) Gọi Gemini
-        try {
-            if (resumePdfBytes != null && !useFileApi) {
-                return bypass ? callGeminiInlinePdf(resumePdfBytes, jd) : putAndReturn(cKey, callGeminiInlinePdf(resumePdfBytes, jd));
-            }
-            if (resumePdfBytes != null && useFileApi) {
-                return bypass ? callGeminiWithFileApi(resumePdfBytes, "application/pdf", "cv.pdf", jd) : putAndReturn(cKey, callGeminiWithFileApi(resumePdfBytes, "application/pdf", "cv.pdf", jd));
-            }
-            return bypass ? callGeminiWithText(resumeText, jd) : putAndReturn(cKey, callGeminiWithText(resumeText, jd));
-        } catch (HttpClientErrorException | HttpServerErrorException e) {
-            if (resumePdfBytes != null && e.getStatusCode().value() == 413) {
-                return bypass ? callGeminiWithFileApi(resumePdfBytes, "application/pdf", "cv.pdf", jd) : putAndReturn(cKey, callGeminiWithFileApi(resumePdfBytes, "application/pdf", "cv.pdf", jd));
-            }
-            return new MatchResponse(0, List.of("AI error: " + e.getStatusCode()));
-        } catch (Exception ex) {
-            return new MatchResponse(0, List.of("Internal error when calling AI"));
+    @Override
+    public Flux<BatchMatchItem> matchApplicationsOfJob(Long requesterId, boolean admin, Long jobId) {
+        Long ownerId = jobRepository.findOwnerUserId(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Job not found"));
+        if (!admin && !Objects.equals(ownerId, requesterId)) {
+            throw new AccessDeniedException("Not allowed to score applications of this job");
         }
+
+        // JD dựng 1 lần cho cả lô
+        return blocking(() -> jobContext(jobId))
+                .flatMapMany(job -> batchCandidates(jobId)
+                        .flatMap(c -> scoreCandidate(c, jobId, job), batchConcurrency));
     }
 
-    // MỚI: chấm với file vừa upload
-    @Override
-    public MatchResponse matchByUploadedFile(Long userId, Long jobId, byte[] pdfBytes, boolean useFileApi) {
-        String jd = buildJobDescription(jobId);
-        String hash = sha256(pdfBytes);
-        String cKey = cacheKey(userId, jobId, hash);
-        MatchResponse cached = getFromCache(cKey);
-        if (cached != null) return cached;
-        boolean bypass = consumeBypass(cKey);
-        try {
-            if (!useFileApi) {
-                return bypass ? callGeminiInlinePdf(pdfBytes, jd) : putAndReturn(cKey, callGeminiInlinePdf(pdfBytes, jd));
-            }
-            return bypass ? callGeminiWithFileApi(pdfBytes, "application/pdf", "cv.pdf", jd) : putAndReturn(cKey, callGeminiWithFileApi(pdfBytes, "application/pdf", "cv.pdf", jd));
-        } catch (HttpClientErrorException | HttpServerErrorException e) {
-            if (e.getStatusCode().value() == 413) {
-                return bypass ? callGeminiWithFileApi(pdfBytes, "application/pdf", "cv.pdf", jd) : putAndReturn(cKey, callGeminiWithFileApi(pdfBytes, "application/pdf", "cv.pdf", jd));
+    private record JobContext(String jd, AiPreScorer.JobFacts facts) {}
+
+    private record Candidate(Integer applicationId, Long userId, String name, String cvUrl) {}
+
+    private record Scored(MatchResponse response, boolean cached) {}
+
+    // Toàn bộ application của job, đọc từng trang theo id khi lô chấm cần thêm ứng viên (không nạp hết 1 lần)
+    private Flux<Candidate> batchCandidates(Long jobId) {
+        return blocking(() -> applicationRepository.findAllByJob_Id(jobId, PageRequest.of(0, batchPageSize, Sort.by("id"))))
+                .expand(page -> page.hasNext()
+                        ? blocking(() -> applicationRepository.findAllByJob_Id(jobId, page.nextPageable()))
+                        : Mono.empty())
+                .concatMapIterable(page -> page.map(a ->
+                        new Candidate(a.getId(), a.getUser().getId(), a.getCandidateName(), a.getCv())).getContent());
+    }
+
+    private Mono<BatchMatchItem> scoreCandidate(Candidate c, Long jobId, JobContext job) {
+        // ứng viên đã nộp CV thì luôn chấm trên CV
+        return blocking(() -> Optional.ofNullable(isBlank(c.cvUrl()) ? preScore(c.userId(), job.facts()) : null))
+                .flatMap(pre -> pre.isPresent()
+                        ? Mono.just(new Scored(pre.get(), false))
+                        : scoreRemote(c, jobId, job.jd()))
+                .onErrorResume(e -> toErrorResponse(e).map(r -> new Scored(r, false)))
+                .map(s -> new BatchMatchItem(c.applicationId(), c.userId(), c.name(),
+                        s.response().getScore(), s.response().getReasons(), s.cached()));
+    }
+
+    private Mono<Scored> scoreRemote(Candidate c, Long jobId, String jd) {
+        Mono<Resume> cv = (c.cvUrl() == null || c.cvUrl().isBlank())
+                ? Mono.empty()
+                : resolveResume(new ResumeRef(c.applicationId(), c.cvUrl()));
+        return cv
+                .flatMap(r -> scoreForBatch(cacheKey(c.userId(), jobId, r.hash()),
+                        () -> r.bytes().flatMap(pdf -> callGeminiInlinePdf(pdf, jd)
+                                .onErrorResume(e -> statusOf(e) == 413,
+                                        e -> callGeminiWithFileApi(pdf, "application/pdf", "cv.pdf", jd)))))
+                .switchIfEmpty(Mono.defer(() -> resumeTextOrProfile(c.userId(), null)
+                        .flatMap(text -> scoreForBatch(cacheKey(c.userId(), jobId, sha256(safeTrim(text))),
+                                () -> callGeminiWithText(text, jd)))));
+    }
+
+    // Như cachedOrCall nhưng không qua bulkhead (lô có giới hạn riêng) và mỗi lần gọi Gemini phải chờ tới lượt
+    private Mono<Scored> scoreForBatch(String cKey, Supplier<Mono<MatchResponse>> call) {
+        return blocking(() -> Optional.ofNullable(getFromCache(cKey)))
+                .flatMap(hit -> hit.isPresent()
+                        ? Mono.just(new Scored(hit.get(), true))
+                        : singleFlight.execute(cKey,
+                                        () -> geminiPermit().then(Mono.defer(call))
+                                                .flatMap(r -> blocking(() -> putAndReturn(cKey, r))),
+                                        () -> getFromCache(cKey))
+                                .map(r -> new Scored(r, false)));
+    }
+
+    // Giãn cách lời gọi Gemini của các lô: tối đa gemini.batch.rate-per-second lần/giây trên node này
+    private Mono<Void> geminiPermit() {
+        long interval = 1_000_000_000L / Math.max(1, batchRatePerSecond);
+        long now = System.nanoTime();
+        long slot = nextGeminiSlot.accumulateAndGet(now, (prev, n) -> Math.max(prev, n) + interval) - interval;
+        long wait = slot - now;
+        return wait <= 0 ? Mono.empty() : Mono.delay(Duration.ofNanos(wait)).then();
+    }
+
+    private record Prepared(String jd, List<ResumeRef> cvs, MatchResponse preScore) {}
+
+    private record ResumeRef(Integer applicationId, String url) {}
+
+    // hash có ngay (để tra AI_MATCH); bytes chỉ đọc đĩa/tải khi thật sự phải gọi Gemini
+    private record Resume(String hash, Mono<byte[]> bytes) {}
+
+    private record CacheLookup(MatchResponse cached, boolean bypass) {}
+
+    private Mono<MatchResponse> scorePdf(Long userId, Long jobId, String jd, Resume cv, boolean useFileApi) {
+        String cKey = cacheKey(userId, jobId, cv.hash());
+        return cachedOrCall(cKey, () -> cv.bytes().flatMap(pdf -> {
+            if (useFileApi) return callGeminiWithFileApi(pdf, "application/pdf", "cv.pdf", jd);
+            // PDF quá lớn cho inline -> chuyển sang File API
+            return callGeminiInlinePdf(pdf, jd)
+                    .onErrorResume(e -> statusOf(e) == 413,
+                            e -> callGeminiWithFileApi(pdf, "application/pdf", "cv.pdf", jd));
+        }));
+    }
+
+    private Mono<MatchResponse> scoreText(Long userId, Long jobId, String jd, String resumeText) {
+        String cKey = cacheKey(userId, jobId, sha256(safeTrim(resumeText)));
+        return cachedOrCall(cKey, () -> callGeminiWithText(resumeText, jd));
+    }
+
+    /**
+     * Cache hit -> trả luôn. Miss -> gọi AI qua bulkhead; các request trùng key (kể cả ở node khác)
+     * được gộp qua {@link AiMatchSingleFlight}, kết quả ghi AI_MATCH 1 lần.
+     * Bypass-once thì gọi thẳng, không gộp và không ghi cache.
+     */
+    private Mono<MatchResponse> cachedOrCall(String cKey, Supplier<Mono<MatchResponse>> call) {
+        return blocking(() -> {
+                    MatchResponse cached = getFromCache(cKey);
+                    return new CacheLookup(cached, cached == null && consumeBypass(cKey));
+                })
+                .flatMap(lookup -> {
+                    if (lookup.cached() != null) return Mono.just(lookup.cached());
+                    if (lookup.bypass()) return bulkhead(call);
+                    return singleFlight.execute(cKey,
+                            () -> bulkhead(call).flatMap(r -> blocking(() -> putAndReturn(cKey, r))),
+                            () -> getFromCache(cKey));
+                });
+    }
+
+    // Giới hạn số lời gọi Gemini đồng thời; vượt quá thì trả lỗi ngay thay vì xếp hàng
+    private Mono<MatchResponse> bulkhead(Supplier<Mono<MatchResponse>> call) {
+        return Mono.defer(() -> {
+            if (inFlight.incrementAndGet() > maxConcurrent) {
+                inFlight.decrementAndGet();
+                return Mono.<MatchResponse>error(new AiBusyException());
             }
-            return new MatchResponse(0, List.of("AI error: " + e.getStatusCode()));
-        } catch (Exception ex) {
-            return new MatchResponse(0, List.of("Internal error when calling AI"));
+            return call.get().doFinally(s -> inFlight.decrementAndGet());
+        });
+    }
+
+    private Mono<MatchResponse> toErrorResponse(Throwable e) {
+        if (e instanceof AiBusyException) {
+            return Mono.just(new MatchResponse(0, List.of("AI is busy, please try again later")));
+        }
+        if (e instanceof WebClientResponseException w) {
+            return Mono.just(new MatchResponse(0, List.of("AI error: " + w.getStatusCode())));
         }
+        log.warn("AI match failed: {}", e.toString());
+        return Mono.just(new MatchResponse(0, List.of("Internal error when calling AI")));
     }
 
-    private MatchResponse callGeminiInlinePdf(byte[] pdf, String jd) {
+    private Mono<MatchResponse> callGeminiInlinePdf(byte[] pdf, String jd) {
         String base = normalizeEndpoint(endpoint); // .../v1beta/models
         String url = base + "/" + model + ":generateContent?key=" + apiKey;
         String b64 = Base64.getEncoder().encodeToString(pdf);
@@ -135,7 +286,7 @@ public class AiMatchServiceImpl implements AiMatchService {
         return postAndParse(url, body);
     }
 
-    private MatchResponse callGeminiWithText(String resume, String jd) {
+    private Mono<MatchResponse> callGeminiWithText(String resume, String jd) {
         String base = normalizeEndpoint(endpoint);
         String url = base + "/" + model + ":generateContent?key=" + apiKey;
         Map<String, Object> body = Map.of(
@@ -155,79 +306,100 @@ public class AiMatchServiceImpl implements AiMatchService {
         return postAndParse(url, body);
     }
 
-    private MatchResponse callGeminiWithFileApi(byte[] bytes, String mime, String filename, String jd) {
+    private Mono<MatchResponse> callGeminiWithFileApi(byte[] bytes, String mime, String filename, String jd) {
         // 1) Upload
         String root = extractApiRoot(endpoint); // https://generativelanguage.googleapis.com
         String uploadUrl = root + "/upload/v1beta/files?key=" + apiKey;
-        HttpHeaders upHeaders = new HttpHeaders();
-        upHeaders.setContentType(MediaType.MULTIPART_FORM_DATA);
-        org.springframework.util.LinkedMultiValueMap<String, Object> form = new org.springframework.util.LinkedMultiValueMap<>();
-        form.add("file", new org.springframework.core.io.ByteArrayResource(bytes) {
+        MultipartBodyBuilder form = new MultipartBodyBuilder();
+        form.part("file", new ByteArrayResource(bytes) {
             @Override
             public String getFilename() {
                 return filename;
             }
-        });
-        ResponseEntity<Map> upResp = rt.postForEntity(uploadUrl, new HttpEntity<>(form, upHeaders), Map.class);
-        Map up = upResp.getBody();
-        String fileUri = null;
-        if (up != null) {
-            Object directUri = up.get("uri");
-            if (directUri != null) {
-                fileUri = directUri.toString();
-            } else {
-                Object fileObj = up.get("file");
-                if (fileObj instanceof Map<?, ?> fileMap) {
-                    Object nestedUri = fileMap.get("uri");
-                    if (nestedUri != null) fileUri = nestedUri.toString();
-                }
-            }
+        }).contentType(MediaType.parseMediaType(mime));
+
+        return webClient.post()
+                .uri(URI.create(uploadUrl))
+                .contentType(MediaType.MULTIPART_FORM_DATA)
+                .body(BodyInserters.fromMultipartData(form.build()))
+                .retrieve()
+                .bodyToMono(Map.class)
+                .retryWhen(transientRetry())
+                .map(this::extractFileUri)
+                .flatMap(fileUri -> {
+                    // 2) Generate (retry có backoff vì file có thể đang PROCESSING)
+                    String base = normalizeEndpoint(endpoint);
+                    String genUrl = base + "/" + model + ":generateContent?key=" + apiKey;
+                    Map<String, Object> body = Map.of(
+                            "contents", List.of(Map.of(
+                                    "role", "user",
+                                    "parts", List.of(
+                                            Map.of("file_data", Map.of("file_uri", fileUri, "mime_type", mime)),
+                                            Map.of("text", buildPrompt(jd))
+                                    )
+                            )),
+                            "generationConfig", Map.of(
+                                    "temperature", 0,
+                                    "topK", 1,
+                                    "topP", 0.1
+                            )
+                    );
+                    return postAndParse(genUrl, body)
+                            .retryWhen(Retry.backoff(2, Duration.ofMillis(1500))
+                                    .filter(e -> {
+                                        int status = statusOf(e);
+                                        return status == 404 || status == 400 || status == 409;
+                                    })
+                                    .onRetryExhaustedThrow((spec, signal) -> signal.failure()));
+                });
+    }
+
+    private String extractFileUri(Map<?, ?> up) {
+        Object directUri = up.get("uri");
+        if (directUri != null) return directUri.toString();
+        Object fileObj = up.get("file");
+        if (fileObj instanceof Map<?, ?> fileMap) {
+            Object nestedUri = fileMap.get("uri");
+            if (nestedUri != null) return nestedUri.toString();
         }
+        return "";
+    }
 
-        // 2) Generate (retry một vài lần vì file có thể đang PROCESSING)
-        String base = normalizeEndpoint(endpoint);
-        String genUrl = base + "/" + model + ":generateContent?key=" + apiKey;
-        Map<String, Object> body = Map.of(
-                "contents", List.of(Map.of(
-                        "role", "user",
-                        "parts", List.of(
-                                Map.of("file_data", Map.of("file_uri", fileUri, "mime_type", mime)),
-                                Map.of("text", buildPrompt(jd))
-                        )
-                )),
-                "generationConfig", Map.of(
-                        "temperature", 0,
-                        "topK", 1,
-                        "topP", 0.1
-                )
-        );
+    private Mono<MatchResponse> postAndParse(String url, Map<String, Object> body) {
+        return webClient.post()
+                .uri(URI.create(url))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(body)
+                .retrieve()
+                .bodyToMono(String.class)
+                .retryWhen(transientRetry())
+                .map(this::parseGeminiResponse)
+                .defaultIfEmpty(new MatchResponse(0, List.of("AI did not respond")));
+    }
 
-        int attempts = 0;
-        while (true) {
-            attempts++;
-            try {
-                return postAndParse(genUrl, body);
-            } catch (RestClientResponseException ex) {
-                int status = ex.getRawStatusCode();
-                String msg = ex.getResponseBodyAsString();
-                boolean maybeProcessing = status == 404 || status == 400 || status == 409;
-                if (maybeProcessing && attempts < 3) {
-                    try { Thread.sleep(1500L * attempts); } catch (InterruptedException ignored) {}
-                    continue;
-                }
-                throw ex;
-            }
-        }
+    // Retry không chặn thread cho lỗi tạm thời: 429, 5xx, lỗi kết nối/timeout
+    private Retry transientRetry() {
+        return Retry.backoff(maxRetries, Duration.ofMillis(500))
+                .maxBackoff(Duration.ofSeconds(4))
+                .filter(e -> {
+                    int status = statusOf(e);
+                    return status == 429 || status >= 500 || e instanceof WebClientRequestException;
+                })
+                .onRetryExhaustedThrow((spec, signal) -> signal.failure());
     }
 
-    private MatchResponse postAndParse(String url, Map<String, Object> body) {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        ResponseEntity<String> resp = rt.postForEntity(url, new HttpEntity<>(body, headers), String.class);
-        if (!resp.getStatusCode().is2xxSuccessful() || resp.getBody() == null) {
-            return new MatchResponse(0, List.of("AI did not respond"));
+    private static int statusOf(Throwable e) {
+        return (e instanceof WebClientResponseException w) ? w.getStatusCode().value() : -1;
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private static class AiBusyException extends RuntimeException {
+        AiBusyException() {
+            super("AI bulkhead full", null, false, false);
         }
-        return parseGeminiResponse(resp.getBody());
     }
 
     private String buildPrompt(String jd) {
@@ -302,9 +474,25 @@ public class AiMatchServiceImpl implements AiMatchService {
         return null;
     }
 
-    private String buildJobDescription(Long jobId) {
+    private JobContext jobContext(Long jobId) {
         JobResponse job = jobService.getById(jobId);
-        if (job == null) return "";
+        if (job == null) return new JobContext("", null);
+        return new JobContext(buildJobDescription(job), preScorer.jobFacts(job));
+    }
+
+    // null = cần Gemini chấm
+    private MatchResponse preScore(Long userId, AiPreScorer.JobFacts facts) {
+        if (facts == null) return null;
+        ProfileCombinedResponse profile;
+        try {
+            profile = profileService.getCombinedProfile(userId);
+        } catch (Exception e) {
+            return null;
+        }
+        return preScorer.shortCircuit(profile, facts).orElse(null);
+    }
+
+    private String buildJobDescription(JobResponse job) {
         String skills = safeJoin(job.getSkillNames());
         String levels = safeJoin(job.getLevelNames());
         String workTypes = safeJoin(job.getWorkTypeNames());
@@ -325,37 +513,61 @@ public class AiMatchServiceImpl implements AiMatchService {
         return sb.toString();
     }
 
-    private byte[] loadResumePdfBytes(Long userId, Long jobId, String resumeFileId) {
+    private List<ResumeRef> resumeRefs(Long userId, Long jobId, String resumeFileId) {
+        List<ResumeRef> refs = new ArrayList<>();
         // Ưu tiên: nếu ứng viên đã nộp cho job này -> lấy URL CV từ application
-        Optional<Application> appOpt = applicationRepository.findByUser_IdAndJob_Id(userId, jobId);
-        if (appOpt.isPresent()) {
-            String url = appOpt.get().getCv();
-            byte[] bytes = fetchBytes(url);
-            if (bytes != null && bytes.length > 0) return bytes;
-        }
+        applicationRepository.findByUser_IdAndJob_Id(userId, jobId)
+                .map(a -> new ResumeRef(a.getId(), a.getCv()))
+                .ifPresent(refs::add);
         // Có thể mở rộng: nếu resumeFileId mang ý nghĩa applicationId cụ thể
         try {
             if (resumeFileId != null && !resumeFileId.isBlank()) {
                 Long appId = Long.valueOf(resumeFileId);
-                Optional<Application> byId = applicationRepository.findById(appId);
-                if (byId.isPresent() && Objects.equals(byId.get().getUser().getId(), userId)) {
-                    byte[] bytes = fetchBytes(byId.get().getCv());
-                    if (bytes != null && bytes.length > 0) return bytes;
-                }
+                applicationRepository.findById(appId)
+                        .filter(a -> Objects.equals(a.getUser().getId(), userId))
+                        .map(a -> new ResumeRef(a.getId(), a.getCv()))
+                        .ifPresent(refs::add);
             }
         } catch (NumberFormatException ignore) {
         }
-        return null;
+        refs.removeIf(r -> r.url() == null || r.url().isBlank());
+        return refs;
     }
 
-    private byte[] fetchBytes(String url) {
-        if (url == null || url.isBlank()) return null;
-        try {
-            ResponseEntity<byte[]> res = rt.exchange(URI.create(url), HttpMethod.GET, new HttpEntity<>(new HttpHeaders()), byte[].class);
-            if (res.getStatusCode().is2xxSuccessful()) return res.getBody();
-        } catch (Exception ignore) {
-        }
-        return null;
+    // Đã có trong cache đĩa -> chỉ cần hash; chưa có (hoặc URL đổi do CV đổi) -> tải 1 lần rồi ghi cache
+    private Mono<Resume> resolveResume(ResumeRef ref) {
+        return blocking(() -> resumeCache.hashOf(ref.applicationId(), ref.url()).orElse(null))
+                .map(hash -> new Resume(hash, cachedBytes(ref, hash)))
+                .switchIfEmpty(Mono.defer(() -> download(ref)
+                        .map(bytes -> new Resume(ResumeBlobCache.sha256(bytes), Mono.just(bytes)))));
+    }
+
+    private Mono<byte[]> cachedBytes(ResumeRef ref, String hash) {
+        return blocking(() -> resumeCache.read(hash).orElse(null))
+                // file đã bị bỏ theo LRU -> tải lại; không tải được thì rỗng để bên gọi chuyển sang nguồn khác
+                .switchIfEmpty(Mono.defer(() -> download(ref)));
+    }
+
+    private Mono<byte[]> download(ResumeRef ref) {
+        return fetchBytes(ref.url())
+                .flatMap(bytes -> blocking(() -> {
+                    resumeCache.put(ref.applicationId(), ref.url(), bytes);
+                    return bytes;
+                }));
+    }
+
+    private Mono<byte[]> fetchBytes(String url) {
+        return webClient.get()
+                .uri(URI.create(url))
+                .retrieve()
+                .bodyToMono(byte[].class)
+                .filter(b -> b.length > 0)
+                .onErrorResume(e -> Mono.empty());
+    }
+
+    private Mono<String> resumeTextOrProfile(Long userId, String resumeText) {
+        if (resumeText != null && !resumeText.isBlank()) return Mono.just(resumeText);
+        return blocking(() -> buildResumeTextFromProfile(profileService.getCombinedProfile(userId)));
     }
 
     private String buildResumeTextFromProfile(ProfileCombinedResponse p) {
@@ -465,6 +677,10 @@ public class AiMatchServiceImpl implements AiMatchService {
         return s == null ? "" : s.trim();
     }
 
+    private boolean isBlank(String s) {
+        return s == null || s.isBlank();
+    }
+
     private String sha256(byte[] bytes) {
         try {
             java.security.MessageDigest md = java.security.MessageDigest.getInstance("SHA-256");
@@ -0,0 +1,109 @@
+package com.jobhuntly.backend.service.impl;
+
+import com.jobhuntly.backend.dto.ai.MatchResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBucket;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Gộp các lần chấm AI trùng key (userId:jobId:resumeHash) khi cache miss:
+ * <ul>
+ *   <li>trong 1 node: các request cùng key dùng chung 1 Mono đang chạy;</li>
+ *   <li>giữa các node: node nào SET NX được ai:match:flight:{key} thì gọi Gemini và ghi AI_MATCH,
+ *   node khác chờ (poll cache) tới khi có kết quả hoặc lease biến mất (leader lỗi) thì tự tính.</li>
+ * </ul>
+ * Redis tắt/lỗi thì chỉ còn gộp trong node.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AiMatchSingleFlight {
+    private static final String FLIGHT_PREFIX = "ai:match:flight:";
+
+    private final ObjectProvider<RedissonClient> redissonProvider;
+
+    @Value("${app.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${gemini.single-flight.lease-ms:90000}")
+    private long leaseMs;
+
+    @Value("${gemini.single-flight.poll-ms:500}")
+    private long pollMs;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final Map<String, Mono<MatchResponse>> inFlight = new ConcurrentHashMap<>();
+
+    private record Poll(MatchResponse result, boolean leaderAlive) {}
+
+    /**
+     * @param compute    gọi AI và ghi cache (chỉ chạy ở leader)
+     * @param readResult đọc AI_MATCH (blocking), null nếu chưa có
+     */
+    public Mono<MatchResponse> execute(String key, Supplier<Mono<MatchResponse>> compute, Supplier<MatchResponse> readResult) {
+        Mono<MatchResponse> running = inFlight.get(key);
+        if (running != null) return running;
+
+        AtomicReference<Mono<MatchResponse>> self = new AtomicReference<>();
+        Mono<MatchResponse> flight = clusterFlight(key, compute, readResult)
+                .doFinally(s -> inFlight.remove(key, self.get()))
+                .cache();
+        self.set(flight);
+        Mono<MatchResponse> winner = inFlight.putIfAbsent(key, flight);
+        return winner != null ? winner : flight;
+    }
+
+    private Mono<MatchResponse> clusterFlight(String key, Supplier<Mono<MatchResponse>> compute, Supplier<MatchResponse> readResult) {
+        RedissonClient redisson = redisEnabled ? redissonProvider.getIfAvailable() : null;
+        if (redisson == null) return Mono.defer(compute);
+
+        RBucket<String> lease = redisson.getBucket(FLIGHT_PREFIX + key, StringCodec.INSTANCE);
+        return blocking(() -> lease.setIfAbsent(nodeId, Duration.ofMillis(leaseMs)))
+                .onErrorResume(e -> {
+                    log.debug("Single-flight lease unavailable for {}: {}", key, e.getMessage());
+                    return Mono.just(true);
+                })
+                .flatMap(leader -> leader
+                        ? lead(lease, compute, readResult)
+                        : follow(lease, compute, readResult));
+    }
+
+    private Mono<MatchResponse> lead(RBucket<String> lease, Supplier<Mono<MatchResponse>> compute, Supplier<MatchResponse> readResult) {
+        // leader trước có thể vừa xong giữa lúc mình check cache và lấy lease
+        return blocking(() -> new Poll(readResult.get(), true))
+                .flatMap(p -> p.result() != null ? Mono.just(p.result()) : Mono.defer(compute))
+                // chỉ xoá lease còn của mình: compute chạy quá lease-ms thì node khác có thể đã lấy lease mới
+                .doFinally(s -> lease.compareAndSetAsync(nodeId, null));
+    }
+
+    private Mono<MatchResponse> follow(RBucket<String> lease, Supplier<Mono<MatchResponse>> compute, Supplier<MatchResponse> readResult) {
+        return Flux.interval(Duration.ofMillis(pollMs))
+                .concatMap(tick -> blocking(() -> new Poll(readResult.get(), lease.isExists())))
+                .filter(p -> p.result() != null || !p.leaderAlive())
+                .next()
+                .timeout(Duration.ofMillis(leaseMs))
+                .flatMap(p -> p.result() != null ? Mono.just(p.result()) : Mono.defer(compute))
+                .onErrorResume(TimeoutException.class, e -> Mono.defer(compute));
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> task) {
+        return Mono.fromCallable(task).subscribeOn(Schedulers.boundedElastic());
+    }
+}
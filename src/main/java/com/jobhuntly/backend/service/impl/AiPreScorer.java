@@ -0,0 +1,141 @@
+package com.jobhuntly.backend.service.impl;
+
+import com.jobhuntly.backend.dto.ai.MatchResponse;
+import com.jobhuntly.backend.dto.response.CandidateSkillResponse;
+import com.jobhuntly.backend.dto.response.JobResponse;
+import com.jobhuntly.backend.dto.response.ProfileCombinedResponse;
+import com.jobhuntly.backend.repository.CategoryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Chấm sơ bộ tại chỗ trước khi gọi Gemini, dựa trên độ trùng giữa kỹ năng trong profile ứng viên
+ * và skill/category/level của job. Điểm dưới {@code gemini.pre-score.threshold} thì trả luôn kết quả
+ * (điểm + lý do cố định), không gọi AI. Thiếu dữ liệu để so (job không có skill/category,
+ * profile không có kỹ năng) thì luôn để Gemini chấm. Chỉ dùng khi ứng viên không có CV / resume text:
+ * profile thường thiếu kỹ năng đã ghi trong CV nên không được phép loại sớm ứng viên có CV.
+ */
+@Service
+@RequiredArgsConstructor
+public class AiPreScorer {
+    private static final double SKILL_WEIGHT = 0.6;
+    private static final double CATEGORY_WEIGHT = 0.25;
+    private static final double LEVEL_WEIGHT = 0.15;
+    // category khác nhưng cùng category cha thì tính một nửa
+    private static final double PARENT_CATEGORY_CREDIT = 0.5;
+
+    private final CategoryRepository categoryRepository;
+
+    @Value("${gemini.pre-score.enabled:true}")
+    private boolean enabled;
+
+    @Value("${gemini.pre-score.threshold:20}")
+    private int threshold;
+
+    /**
+     * Tập tên (lower-case) của job dùng để so; dựng 1 lần cho mỗi job.
+     * {@code parentOf}: category của job -> category cha (không có cha thì không có mục).
+     */
+    public record JobFacts(Set<String> skills, Set<String> levels, Set<String> categories, Map<String, String> parentOf) {}
+
+    public JobFacts jobFacts(JobResponse job) {
+        Set<String> categories = lower(job.getCategoryNames());
+        Map<String, String> parentOf = new HashMap<>();
+        if (!categories.isEmpty()) {
+            for (Object[] row : categoryRepository.findNameAndParentNameByNameLcIn(categories)) {
+                String category = lower((String) row[0]);
+                String parent = lower((String) row[1]);
+                if (category != null && parent != null) parentOf.put(category, parent);
+            }
+        }
+        return new JobFacts(lower(job.getSkillNames()), lower(job.getLevelNames()), categories, parentOf);
+    }
+
+    /** Kết quả cố định nếu cặp ứng viên/job rõ ràng không hợp, rỗng nếu cần Gemini chấm. */
+    public Optional<MatchResponse> shortCircuit(ProfileCombinedResponse profile, JobFacts job) {
+        if (!enabled || profile == null || profile.getCandidateSkills() == null || profile.getCandidateSkills().isEmpty()) {
+            return Optional.empty();
+        }
+        if (job.skills().isEmpty() && job.categories().isEmpty()) return Optional.empty();
+
+        Set<String> skills = new HashSet<>();
+        Set<String> categories = new HashSet<>();
+        Set<String> parents = new HashSet<>();
+        Set<String> matchedLevels = new HashSet<>();
+        for (CandidateSkillResponse s : profile.getCandidateSkills()) {
+            String skill = lower(s.getSkillName());
+            if (skill != null) skills.add(skill);
+            String category = lower(s.getCategoryName());
+            if (category != null) categories.add(category);
+            String parent = lower(s.getParentCategoryName());
+            if (parent != null) parents.add(parent);
+            // level chỉ có nghĩa với kỹ năng job yêu cầu
+            String level = lower(s.getLevelName());
+            if (level != null && skill != null && job.skills().contains(skill)) matchedLevels.add(level);
+        }
+
+        Set<String> commonSkills = intersect(skills, job.skills());
+        double skillScore = ratio(commonSkills.size(), job.skills().size());
+
+        double categoryHits = 0;
+        for (String c : job.categories()) {
+            if (categories.contains(c)) categoryHits += 1;
+            else if (parents.contains(job.parentOf().get(c))) categoryHits += PARENT_CATEGORY_CREDIT;
+        }
+        double categoryScore = ratio(categoryHits, job.categories().size());
+
+        double levelScore = job.levels().isEmpty() || !Collections.disjoint(matchedLevels, job.levels()) ? 1 : 0;
+
+        // job thiếu phần nào thì dồn trọng số cho phần còn lại
+        double weightSum = (job.skills().isEmpty() ? 0 : SKILL_WEIGHT)
+                + (job.categories().isEmpty() ? 0 : CATEGORY_WEIGHT)
+                + LEVEL_WEIGHT;
+        double raw = (job.skills().isEmpty() ? 0 : SKILL_WEIGHT * skillScore)
+                + (job.categories().isEmpty() ? 0 : CATEGORY_WEIGHT * categoryScore)
+                + LEVEL_WEIGHT * levelScore;
+        int score = (int) Math.round(100 * raw / weightSum);
+        if (score >= threshold) return Optional.empty();
+
+        List<String> reasons = new ArrayList<>();
+        reasons.add("Pre-screened locally: profile skills overlap too little with the job (" + score + "/100)");
+        if (!job.skills().isEmpty()) {
+            reasons.add(commonSkills.isEmpty()
+                    ? "None of the required skills found in profile: " + String.join(", ", job.skills())
+                    : "Matched " + commonSkills.size() + "/" + job.skills().size() + " required skills: " + String.join(", ", commonSkills));
+        }
+        if (!job.categories().isEmpty() && categoryScore == 0) {
+            reasons.add("Profile skills are outside the job categories: " + String.join(", ", job.categories()));
+        }
+        if (levelScore == 0) {
+            reasons.add("No matching skill at required level: " + String.join(", ", job.levels()));
+        }
+        return Optional.of(new MatchResponse(score, reasons));
+    }
+
+    private static double ratio(double hits, int total) {
+        return total == 0 ? 0 : hits / total;
+    }
+
+    private static Set<String> intersect(Set<String> a, Set<String> b) {
+        Set<String> r = new TreeSet<>(a);
+        r.retainAll(b);
+        return r;
+    }
+
+    private static Set<String> lower(Collection<String> names) {
+        if (names == null) return Set.of();
+        Set<String> r = new TreeSet<>();
+        for (String n : names) {
+            String l = lower(n);
+            if (l != null) r.add(l);
+        }
+        return r;
+    }
+
+    private static String lower(String s) {
+        return s == null || s.isBlank() ? null : s.trim().toLowerCase(Locale.ROOT);
+    }
+}
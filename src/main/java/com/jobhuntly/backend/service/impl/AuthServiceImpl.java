@@ -1,10 +1,6 @@
 package com.jobhuntly.backend.service.impl;
 
 import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
-import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
-import com.google.api.client.googleapis.util.Utils;
-import com.google.api.client.http.HttpTransport;
-import com.google.api.client.json.JsonFactory;
 import com.jobhuntly.backend.dto.auth.RefreshResult;
 import com.jobhuntly.backend.dto.auth.StartSessionResult;
 import com.jobhuntly.backend.dto.auth.request.GoogleLoginRequest;
@@ -23,6 +19,8 @@ import com.jobhuntly.backend.exception.GoogleAccountNeedsPasswordException;
 import com.jobhuntly.backend.repository.CandidateProfileRepository;
 import com.jobhuntly.backend.repository.RoleRepository;
 import com.jobhuntly.backend.repository.UserRepository;
+import com.jobhuntly.backend.security.GoogleTokenVerifier;
+import com.jobhuntly.backend.security.PrincipalSnapshotCache;
 import com.jobhuntly.backend.security.cookie.AuthCookieService;
 import com.jobhuntly.backend.security.cookie.CookieProperties;
 import com.jobhuntly.backend.security.jwt.JwtUtil;
@@ -49,7 +47,6 @@ import org.thymeleaf.spring6.SpringTemplateEngine;
 
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Collections;
 import java.util.Optional;
 
 @Service
@@ -73,9 +70,9 @@ public class AuthServiceImpl implements AuthService {
     private final OneTimeTokenService oneTimeTokenService;
 
     private final CookieProperties cookieProps;
+    private final GoogleTokenVerifier googleTokenVerifier;
+    private final PrincipalSnapshotCache principalCache;
 
-    @Value("${google.client-id}")
-    private String GOOGLE_CLIENT_ID;
     @Value("${backend.host}")
     private String BACKEND_HOST;
     @Value("${backend.prefix}")
@@ -208,7 +205,7 @@ public class AuthServiceImpl implements AuthService {
                                          HttpServletRequest req,
                                          HttpServletResponse res) {
 
-        GoogleIdToken idToken = verifyGoogleIdToken(request.getIdToken(), GOOGLE_CLIENT_ID);
+        GoogleIdToken idToken = googleTokenVerifier.verify(request.getIdToken());
         if (idToken == null) throw new RuntimeException("Invalid Google ID token");
 
         GoogleIdToken.Payload payload = idToken.getPayload();
@@ -367,23 +364,14 @@ public class AuthServiceImpl implements AuthService {
 
         RefreshResult rr = sessionService.rotate(rawRefresh, req);
 
-        authCookieService.setRefreshCookie(res, rr.newRefreshToken(), jwtUtil.getRefreshTtl());
-
-        String access = jwtUtil.issueAccessToken(rr.user());
-        authCookieService.setAccessCookie(res, access, jwtUtil.getAccessTtl());
-    }
-
-    private GoogleIdToken verifyGoogleIdToken(String idTokenString, String clientId) {
-        try {
-            HttpTransport transport = Utils.getDefaultTransport();
-            JsonFactory jsonFactory = Utils.getDefaultJsonFactory();
-            GoogleIdTokenVerifier verifier = new GoogleIdTokenVerifier.Builder(transport, jsonFactory)
-                    .setAudience(Collections.singletonList(clientId))
-                    .build();
-            return verifier.verify(idTokenString);
-        } catch (Exception ex) {
-            return null;
+        // snapshot ngắn hạn thay cho load User; các lần refresh đồng thời của cùng user chỉ mint 1 token
+        PrincipalSnapshotCache.Minted minted = principalCache.mintAccessToken(rr.userId());
+        if (minted == null) {
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Account is not available");
         }
+
+        authCookieService.setRefreshCookie(res, rr.newRefreshToken(), jwtUtil.getRefreshTtl());
+        authCookieService.setAccessCookie(res, minted.accessToken(), jwtUtil.getAccessTtl());
     }
 
     @Transactional
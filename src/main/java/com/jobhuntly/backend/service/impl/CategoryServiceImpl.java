@@ -6,6 +6,7 @@ import com.jobhuntly.backend.entity.Category;
 import com.jobhuntly.backend.mapper.CategoryMapper;
 import com.jobhuntly.backend.repository.CategoryRepository;
 import com.jobhuntly.backend.service.CategoryService;
+import com.jobhuntly.backend.service.dictionary.JobDictionary;
 import lombok.AllArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -23,6 +24,7 @@ import static com.jobhuntly.backend.constant.CacheConstant.DICT_CATEGORIES;
 public class CategoryServiceImpl implements CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final JobDictionary jobDictionary;
 
     @Override
     public CategoryResponse createCategory(CategoryRequest categoryRequest) {
@@ -41,6 +43,7 @@ public class CategoryServiceImpl implements CategoryService {
             Category root = categoryMapper.toEntity(categoryRequest);
             root.setParent(null);
             Category saved = categoryRepository.save(root);
+            jobDictionary.refreshAfterCommit(JobDictionary.Type.CATEGORY);
             return categoryMapper.toResponse(saved);
         }
         Category children = categoryRepository.findByNameIgnoreCase(parentName)
@@ -53,6 +56,7 @@ public class CategoryServiceImpl implements CategoryService {
         child.setParent(children);
 
         Category saved = categoryRepository.save(child);
+        jobDictionary.refreshAfterCommit(JobDictionary.Type.CATEGORY);
         return categoryMapper.toResponse(saved);
     }
 
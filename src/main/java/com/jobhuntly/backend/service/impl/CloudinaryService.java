@@ -343,11 +343,22 @@ public class CloudinaryService {
     }
 
     public UploadResult uploadBytes(byte[] data, String folder, String filename, String resourceType) {
-        try {
-            if (data == null || data.length == 0) {
-                throw new IllegalArgumentException("Empty data");
-            }
+        if (data == null || data.length == 0) {
+            throw new IllegalArgumentException("Empty data");
+        }
+        return upload(data, folder, filename, resourceType);
+    }
 
+    // SDK đọc thẳng từ file, không cần nạp cả file vào heap
+    public UploadResult uploadFile(java.io.File file, String folder, String filename, String resourceType) {
+        if (file == null || file.length() == 0) {
+            throw new IllegalArgumentException("Empty data");
+        }
+        return upload(file, folder, filename, resourceType);
+    }
+
+    private UploadResult upload(Object source, String folder, String filename, String resourceType) {
+        try {
             String rt = normalizeResourceType(resourceType);
 
             String folderSafe = trimSlashesOrNull(folder);
@@ -366,7 +377,7 @@ public class CloudinaryService {
             );
 
             @SuppressWarnings("rawtypes")
-            Map res = cloudinary.uploader().upload(data, options);
+            Map res = cloudinary.uploader().upload(source, options);
 
             String returnedPublicId = (String) res.get("public_id");
             String secureUrl        = (String) res.get("secure_url");
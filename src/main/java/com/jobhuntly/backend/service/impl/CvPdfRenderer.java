@@ -0,0 +1,278 @@
+package com.jobhuntly.backend.service.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Render HTML -> PDF bằng wkhtmltopdf trên 1 pool giới hạn:
+ * <ul>
+ *   <li>tối đa {@code app.cv-pdf.workers} process chạy cùng lúc, hàng đợi {@code queue-capacity};
+ *   đầy thì trả 429 ngay thay vì fork thêm process. Request chờ tới lượt tối đa {@code queue-timeout-ms}
+ *   rồi chờ render tối đa {@code render-timeout-ms}; lượt render mà mọi request đã bỏ đi thì không chạy;</li>
+ *   <li>PDF được giữ trên đĩa theo (templateId, hash HTML đã bind profile) - profile và template không đổi
+ *   thì tải lại không phải render; các request trùng key đang render dùng chung 1 lần render;</li>
+ *   <li>kết quả trả về dạng file để controller stream, không đọc cả file vào heap.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CvPdfRenderer {
+
+    private final MeterRegistry meterRegistry;
+
+    @Value("${app.cv-pdf.workers:2}")
+    private int workers;
+
+    @Value("${app.cv-pdf.queue-capacity:8}")
+    private int queueCapacity;
+
+    @Value("${app.cv-pdf.queue-timeout-ms:30000}")
+    private long queueTimeoutMs;
+
+    @Value("${app.cv-pdf.render-timeout-ms:60000}")
+    private long renderTimeoutMs;
+
+    @Value("${app.cv-pdf.dpi:300}")
+    private int dpi;
+
+    @Value("${app.cv-pdf.cache-dir:${java.io.tmpdir}/jobhuntly-cv-pdf}")
+    private String cacheDirPath;
+
+    @Value("${app.cv-pdf.cache-entries:500}")
+    private int cacheEntries;
+
+    private ThreadPoolExecutor executor;
+    private Path cacheDir;
+    // key -> file PDF, LRU theo số entry
+    private Map<String, Path> cache;
+    private final Map<String, RenderJob> rendering = new ConcurrentHashMap<>();
+
+    private Timer renderTimer;
+    private Counter cacheHits;
+    private Counter rejected;
+    private Counter failures;
+    private Counter abandoned;
+
+    // 1 lượt render dùng chung cho các request trùng key
+    private static final class RenderJob {
+        final CompletableFuture<Void> started = new CompletableFuture<>();
+        final CompletableFuture<Path> result = new CompletableFuture<>();
+        // số request đang chờ; -1 = đã bỏ vì tới lượt mà không còn ai chờ
+        final AtomicInteger waiters = new AtomicInteger();
+
+        boolean join() {
+            return waiters.updateAndGet(w -> w < 0 ? w : w + 1) > 0;
+        }
+
+        void fail(Throwable e) {
+            started.completeExceptionally(e);
+            result.completeExceptionally(e);
+        }
+    }
+
+    @PostConstruct
+    void init() throws IOException {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "cv-pdf-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+
+        cacheDir = Files.createDirectories(Paths.get(cacheDirPath));
+        try (Stream<Path> old = Files.list(cacheDir)) {
+            old.forEach(CvPdfRenderer::deleteQuietly);
+        }
+        cache = new LinkedHashMap<>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Path> eldest) {
+                if (size() <= cacheEntries) return false;
+                // file đang được stream vẫn đọc được sau khi unlink
+                deleteQuietly(eldest.getValue());
+                return true;
+            }
+        };
+
+        renderTimer = meterRegistry.timer("cv.pdf.render");
+        cacheHits = meterRegistry.counter("cv.pdf.cache.hits");
+        rejected = meterRegistry.counter("cv.pdf.rejected");
+        failures = meterRegistry.counter("cv.pdf.failures");
+        abandoned = meterRegistry.counter("cv.pdf.abandoned");
+        Gauge.builder("cv.pdf.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("cv.pdf.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** PDF của HTML đã bind; 429 nếu hàng đợi render đầy. */
+    public Resource render(Long templateId, String html) {
+        String key = templateId + "-" + sha256Hex(html);
+        Path cached;
+        synchronized (this) {
+            cached = cache.get(key);
+        }
+        if (cached != null && Files.exists(cached)) {
+            cacheHits.increment();
+            return new FileSystemResource(cached);
+        }
+
+        RenderJob job = null;
+        while (job == null) {
+            RenderJob mine = new RenderJob();
+            mine.join();
+            RenderJob running = rendering.putIfAbsent(key, mine);
+            if (running == null) {
+                try {
+                    executor.execute(() -> renderInto(key, html, mine));
+                } catch (RejectedExecutionException e) {
+                    rendering.remove(key, mine);
+                    rejected.increment();
+                    mine.fail(e);
+                    throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "PDF renderer is busy, please retry shortly");
+                }
+                job = mine;
+            } else if (running.join()) {
+                job = running;
+            } else {
+                // lượt kia vừa bị bỏ -> tạo lượt mới
+                rendering.remove(key, running);
+            }
+        }
+
+        try {
+            // thời gian xếp hàng và thời gian render tính riêng: request tới sau không bị 503 chỉ vì phải chờ lượt
+            try {
+                job.started.get(queueTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "PDF renderer is busy, please retry shortly");
+            }
+            return new FileSystemResource(job.result.get(renderTimeoutMs, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "PDF rendering timed out");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "PDF rendering interrupted");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RejectedExecutionException) {
+                throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "PDF renderer is busy, please retry shortly");
+            }
+            throw new RuntimeException("Failed to render PDF with wkhtmltopdf", e.getCause());
+        } finally {
+            job.waiters.decrementAndGet();
+        }
+    }
+
+    private void renderInto(String key, String html, RenderJob job) {
+        // mọi request đã hết kiên nhẫn trong lúc xếp hàng -> không fork wkhtmltopdf cho ai cả
+        if (job.waiters.compareAndSet(0, -1)) {
+            rendering.remove(key, job);
+            abandoned.increment();
+            job.fail(new CancellationException("No one is waiting for this render"));
+            return;
+        }
+        job.started.complete(null);
+
+        CompletableFuture<Path> result = job.result;
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Path tempHtml = null;
+        Path tempPdf = null;
+        try {
+            tempHtml = Files.createTempFile(cacheDir, "cv_", ".html");
+            tempPdf = Files.createTempFile(cacheDir, "cv_", ".part");
+            Files.writeString(tempHtml, html, StandardCharsets.UTF_8);
+
+            ProcessBuilder pb = new ProcessBuilder(
+                    "wkhtmltopdf",
+                    "--page-size", "A4",
+                    "--orientation", "Portrait",
+                    "--margin-top", "0mm",
+                    "--margin-bottom", "0mm",
+                    "--margin-left", "0mm",
+                    "--margin-right", "0mm",
+                    "--print-media-type",
+                    "--enable-local-file-access",
+                    "--encoding", "utf-8",
+                    "--dpi", String.valueOf(dpi),
+                    tempHtml.toString(),
+                    tempPdf.toString()
+            );
+            // không ai đọc stdout -> bỏ đi, tránh process bị treo khi pipe đầy
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            Process process = pb.start();
+            if (!process.waitFor(renderTimeoutMs, TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new IllegalStateException("wkhtmltopdf timed out");
+            }
+            if (process.exitValue() != 0) {
+                throw new IllegalStateException("wkhtmltopdf failed, exit code " + process.exitValue());
+            }
+
+            Path target = cacheDir.resolve(key + ".pdf");
+            Files.move(tempPdf, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tempPdf = null;
+            synchronized (this) {
+                cache.put(key, target);
+            }
+            result.complete(target);
+        } catch (Exception e) {
+            failures.increment();
+            log.warn("CV PDF render failed: {}", e.getMessage());
+            result.completeExceptionally(e);
+        } finally {
+            rendering.remove(key, job);
+            sample.stop(renderTimer);
+            if (tempHtml != null) deleteQuietly(tempHtml);
+            if (tempPdf != null) deleteQuietly(tempPdf);
+        }
+    }
+
+    private static String sha256Hex(String s) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void deleteQuietly(Path p) {
+        try {
+            Files.deleteIfExists(p);
+        } catch (IOException ignore) {
+            // thư mục cache được dọn lại khi khởi động
+        }
+    }
+}
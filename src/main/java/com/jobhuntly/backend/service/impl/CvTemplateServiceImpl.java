@@ -6,22 +6,28 @@ import com.jobhuntly.backend.entity.CvTemplate;
 import com.jobhuntly.backend.mapper.CvTemplateMapper;
 import com.jobhuntly.backend.repository.CvTemplateRepository;
 import com.jobhuntly.backend.service.CvTemplateService;
+import com.jobhuntly.backend.util.TransactionUtils;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import org.thymeleaf.IEngineConfiguration;
 import org.thymeleaf.TemplateEngine;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.StringTemplateResolver;
+import org.thymeleaf.templateresource.ITemplateResource;
+import org.thymeleaf.templateresource.StringTemplateResource;
 
-import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
@@ -32,6 +38,16 @@ public class CvTemplateServiceImpl implements CvTemplateService {
     private final CvTemplateRepository repository;
     private final CloudinaryService cloudinaryService;
     private final TemplateEngine templateEngine;
+    private final CvPdfRenderer pdfRenderer;
+
+    private static final String TEMPLATE_PREFIX = "cv-template:";
+
+    // templateId -> HTML đã tải của phiên bản hiện tại (tên template chứa htmlUrl nên upload mới = tên mới)
+    private final Map<Long, CachedTemplate> templates = new ConcurrentHashMap<>();
+    // 1 engine dùng chung; template đã parse được Thymeleaf cache theo tên
+    private final TemplateEngine stringEngine = buildStringEngine();
+
+    private record CachedTemplate(String name, String html) {}
 
     @Override
     public CvTemplateResponse create(String name, MultipartFile htmlFile, MultipartFile previewImage)
@@ -91,6 +107,7 @@ public class CvTemplateServiceImpl implements CvTemplateService {
         if (htmlFile != null && !htmlFile.isEmpty()) {
             CloudinaryService.CloudAsset htmlAsset = cloudinaryService.uploadCvTemplateFile(id, htmlFile, "html");
             e.setHtmlUrl(htmlAsset.secureUrl());
+            TransactionUtils.afterCommit(() -> evictTemplate(id));
         }
         if (previewImage != null && !previewImage.isEmpty()) {
             CloudinaryService.CloudAsset previewAsset = cloudinaryService.uploadCvTemplateFile(id, previewImage,
@@ -117,18 +134,11 @@ public class CvTemplateServiceImpl implements CvTemplateService {
         }
 
         repository.delete(template);
+        TransactionUtils.afterCommit(() -> evictTemplate(id));
     }
 
     public String renderHtml(Long templateId, ProfileCombinedResponse profile) {
-        String htmlTemplate = fetchHtmlFromCloudinary(templateId);
-
-        // Create a StringTemplateResolver to handle raw HTML strings
-        StringTemplateResolver resolver = new StringTemplateResolver();
-        resolver.setTemplateMode(TemplateMode.HTML);
-
-        // Use a new TemplateEngine with the StringTemplateResolver
-        TemplateEngine stringTemplateEngine = new TemplateEngine();
-        stringTemplateEngine.setTemplateResolver(resolver);
+        String templateName = loadTemplate(templateId);
 
         Context ctx = new Context();
         ctx.setVariable("profile", profile);
@@ -153,63 +163,66 @@ public class CvTemplateServiceImpl implements CvTemplateService {
             ctx.setVariable("candidateSkills", profile.getCandidateSkills());
         }
 
-        // Process the HTML string directly
-        return stringTemplateEngine.process(htmlTemplate, ctx);
+        // Template đã parse nằm trong cache của engine, lần render sau chỉ còn bind dữ liệu
+        return stringEngine.process(templateName, ctx);
     }
 
-    public byte[] renderPdf(Long templateId, ProfileCombinedResponse profile) {
-        String htmlContent = renderHtml(templateId, profile);
+    // Không giữ transaction/connection DB trong lúc chờ render
+    @Override
+    @Transactional(Transactional.TxType.NOT_SUPPORTED)
+    public Resource renderPdf(Long templateId, ProfileCombinedResponse profile) {
+        return pdfRenderer.render(templateId, renderHtml(templateId, profile));
+    }
 
-        try {
-            File tempHtml = File.createTempFile("cv_", ".html");
-            Files.writeString(tempHtml.toPath(), htmlContent, StandardCharsets.UTF_8);
-
-            File tempPdf = File.createTempFile("cv_", ".pdf");
-
-            // call wkhtmltopdf options
-            ProcessBuilder pb = new ProcessBuilder(
-                    "wkhtmltopdf",
-                    "--page-size", "A4",
-                    "--orientation", "Portrait",
-                    "--margin-top", "0mm",
-                    "--margin-bottom", "0mm",
-                    "--margin-left", "0mm",
-                    "--margin-right", "0mm",
-                    "--print-media-type",
-                    "--enable-local-file-access",
-                    "--encoding", "utf-8",
-                    "--dpi", "300",
-                    tempHtml.getAbsolutePath(),
-                    tempPdf.getAbsolutePath()
-            );
-
-            pb.redirectErrorStream(true);
-            Process process = pb.start();
-            int exitCode = process.waitFor();
-
-            if (exitCode != 0) {
-                throw new RuntimeException("wkhtmltopdf failed, exit code " + exitCode);
-            }
+    // Trả về tên template trong engine; chỉ tải HTML từ Cloudinary khi chưa có hoặc htmlUrl đã đổi
+    private String loadTemplate(Long templateId) {
+        CvTemplate template = repository.findById(templateId)
+                .orElseThrow(() -> new NoSuchElementException("Template not found: " + templateId));
+        String name = TEMPLATE_PREFIX + templateId + ":" + template.getHtmlUrl();
 
-            byte[] pdfBytes = Files.readAllBytes(tempPdf.toPath());
+        CachedTemplate cached = templates.get(templateId);
+        if (cached != null && cached.name().equals(name)) return name;
 
-            tempHtml.delete();
-            tempPdf.delete();
+        CachedTemplate fresh = new CachedTemplate(name, fetchHtmlFromCloudinary(template.getHtmlUrl()));
+        CachedTemplate old = templates.put(templateId, fresh);
+        if (old != null && !old.name().equals(name)) stringEngine.clearTemplateCacheFor(old.name());
+        return name;
+    }
 
-            return pdfBytes;
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to render PDF with wkhtmltopdf", e);
-        }
+    private void evictTemplate(Long templateId) {
+        CachedTemplate old = templates.remove(templateId);
+        if (old != null) stringEngine.clearTemplateCacheFor(old.name());
     }
 
-    private String fetchHtmlFromCloudinary(Long templateId) {
-        CvTemplate template = repository.findById(templateId)
-                .orElseThrow(() -> new NoSuchElementException("Template not found: " + templateId));
-        try {
-            URL url = new URL(template.getHtmlUrl());
-            return new String(url.openStream().readAllBytes(), StandardCharsets.UTF_8);
+    private String fetchHtmlFromCloudinary(String htmlUrl) {
+        try (InputStream in = new URL(htmlUrl).openStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
         } catch (IOException e) {
             throw new RuntimeException("Failed to fetch HTML template from Cloudinary", e);
         }
     }
+
+    private TemplateEngine buildStringEngine() {
+        // Tên template -> nội dung HTML đang giữ trong `templates`
+        StringTemplateResolver resolver = new StringTemplateResolver() {
+            @Override
+            protected ITemplateResource computeTemplateResource(IEngineConfiguration configuration, String ownerTemplate,
+                                                                String template, Map<String, Object> templateResolutionAttributes) {
+                return new StringTemplateResource(htmlOf(template));
+            }
+        };
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCacheable(true);
+
+        TemplateEngine engine = new TemplateEngine();
+        engine.setTemplateResolver(resolver);
+        return engine;
+    }
+
+    private String htmlOf(String templateName) {
+        for (CachedTemplate t : templates.values()) {
+            if (t.name().equals(templateName)) return t.html();
+        }
+        throw new IllegalStateException("CV template not loaded: " + templateName);
+    }
 }
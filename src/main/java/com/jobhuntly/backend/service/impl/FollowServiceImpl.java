@@ -7,6 +7,7 @@ import com.jobhuntly.backend.mapper.FollowMapper;
 import com.jobhuntly.backend.repository.CompanyRepository;
 import com.jobhuntly.backend.repository.FollowRepository;
 import com.jobhuntly.backend.service.FollowService;
+import com.jobhuntly.backend.service.cache.FollowSetCache;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
@@ -29,6 +30,7 @@ public class FollowServiceImpl implements FollowService {
     private final FollowRepository followRepository;
     private final CompanyRepository companyRepository;
     private final FollowMapper followMapper;
+    private final FollowSetCache followSetCache;
 
     @Override
     public void create(Long userId, Long companyId) {
@@ -42,11 +44,13 @@ public class FollowServiceImpl implements FollowService {
         toSave.setUserId(userId);
         toSave.setCompanyId(companyId);
         followRepository.save(toSave);
+        followSetCache.followedAfterCommit(userId, companyId);
     }
 
     @Override
     public void delete(Long userId, Long companyId) {
         followRepository.deleteByUserIdAndCompanyId(userId, companyId);
+        followSetCache.unfollowedAfterCommit(userId, companyId);
     }
 
     @Override
@@ -91,6 +95,6 @@ public class FollowServiceImpl implements FollowService {
 
     @Override
     public boolean isFollowed(Long userId, Long companyId) {
-        return followRepository.existsByUserIdAndCompanyId(userId, companyId);
+        return followSetCache.isFollowing(userId, companyId);
     }
 }
@@ -0,0 +1,125 @@
+package com.jobhuntly.backend.service.impl;
+
+import com.jobhuntly.backend.dto.request.JobFilterRequest;
+import com.jobhuntly.backend.entity.*;
+import com.jobhuntly.backend.entity.enums.FacetType;
+import com.jobhuntly.backend.repository.*;
+import com.jobhuntly.backend.service.JobSearchFacetService;
+import com.jobhuntly.backend.service.dictionary.JobDictionary;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Transactional
+public class JobSearchFacetServiceImpl implements JobSearchFacetService {
+    private final JobSearchFacetRepository facetRepository;
+    private final WardRepository wardRepository;
+    private final CityRepository cityRepository;
+    private final JobDictionary jobDictionary;
+
+    @Value("${app.search.facet-index.enabled:true}")
+    private boolean enabled;
+
+    @Override
+    public void index(Job job) {
+        if (job == null || job.getId() == null) return;
+        Long jobId = job.getId();
+
+        List<JobSearchFacet> rows = new ArrayList<>();
+        addAll(rows, jobId, FacetType.CATEGORY, job.getCategories(), Category::getId);
+        addAll(rows, jobId, FacetType.SKILL, job.getSkills(), Skill::getId);
+        addAll(rows, jobId, FacetType.LEVEL, job.getLevels(), Level::getId);
+        addAll(rows, jobId, FacetType.WORK_TYPE, job.getWorkTypes(), WorkType::getId);
+        addAll(rows, jobId, FacetType.WARD, job.getWards(), Ward::getId);
+        if (job.getWards() != null) {
+            Set<Long> cityIds = job.getWards().stream()
+                    .map(Ward::getCity)
+                    .filter(Objects::nonNull)
+                    .map(City::getId)
+                    .collect(Collectors.toCollection(LinkedHashSet::new));
+            addAll(rows, jobId, FacetType.CITY, cityIds, Function.identity());
+        }
+
+        facetRepository.deleteByJobId(jobId);
+        if (!rows.isEmpty()) facetRepository.saveAll(rows);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public JobFacetFilter resolve(JobFilterRequest r) {
+        if (!enabled) return null;
+
+        List<JobFacetFilter.Criterion> criteria = new ArrayList<>();
+        addDictCriterion(criteria, FacetType.CATEGORY, JobDictionary.Type.CATEGORY,
+                r.getCategoryNames(), r.isMatchAllCategories());
+        addDictCriterion(criteria, FacetType.SKILL, JobDictionary.Type.SKILL,
+                r.getSkillNames(), r.isMatchAllSkills());
+        addDictCriterion(criteria, FacetType.LEVEL, JobDictionary.Type.LEVEL,
+                r.getLevelNames(), r.isMatchAllLevels());
+        addDictCriterion(criteria, FacetType.WORK_TYPE, JobDictionary.Type.WORK_TYPE,
+                r.getWorkTypeNames(), r.isMatchAllWorkTypes());
+        addCriterion(criteria, FacetType.WARD, r.getWardNames(), r.isMatchAllWards(),
+                wardRepository::findIdsByNameLc);
+
+        if (r.getCityName() != null && !r.getCityName().isBlank()) {
+            addCriterion(criteria, FacetType.CITY, Set.of(r.getCityName()), false,
+                    cityRepository::findIdsByNameLc);
+        }
+        return new JobFacetFilter(criteria);
+    }
+
+    private <E> void addAll(List<JobSearchFacet> rows, Long jobId, FacetType type,
+                            Collection<E> items, Function<E, Long> idOf) {
+        if (items == null) return;
+        for (E e : items) {
+            Long id = idOf.apply(e);
+            if (id != null) rows.add(new JobSearchFacet(jobId, type, id));
+        }
+    }
+
+    // Category/Skill/Level/WorkType: tên là duy nhất, resolve qua từ điển in-memory
+    private void addDictCriterion(List<JobFacetFilter.Criterion> out, FacetType type, JobDictionary.Type dictType,
+                                  Set<String> names, boolean matchAll) {
+        Set<String> namesLc = lcSet(names);
+        if (namesLc.isEmpty()) return;
+
+        Map<String, Long> ids = jobDictionary.idsByName(dictType, namesLc);
+        List<Set<Long>> groups = new ArrayList<>();
+        for (String n : namesLc) {
+            Long id = ids.get(n);
+            groups.add(id == null ? Set.of() : Set.of(id));
+        }
+        out.add(new JobFacetFilter.Criterion(type, groups, matchAll));
+    }
+
+    // Mỗi tên 1 group (rỗng nếu không tồn tại). DB tự so khớp từng tên (collation không phân biệt dấu:
+    // "ha noi" khớp "Hà Nội") nên id gắn đúng group, không phải map ngược tên trả về bằng Java
+    private void addCriterion(List<JobFacetFilter.Criterion> out, FacetType type,
+                              Set<String> names, boolean matchAll,
+                              Function<String, List<Long>> idsByNameLc) {
+        Set<String> namesLc = lcSet(names);
+        if (namesLc.isEmpty()) return;
+
+        List<Set<Long>> groups = new ArrayList<>();
+        for (String n : namesLc) {
+            groups.add(new LinkedHashSet<>(idsByNameLc.apply(n)));
+        }
+        out.add(new JobFacetFilter.Criterion(type, groups, matchAll));
+    }
+
+    private static Set<String> lcSet(Set<String> in) {
+        if (in == null || in.isEmpty()) return Collections.emptySet();
+        return in.stream()
+                .filter(Objects::nonNull)
+                .map(str -> str.toLowerCase(Locale.ROOT).trim())
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
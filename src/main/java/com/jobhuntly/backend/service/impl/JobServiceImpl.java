@@ -3,19 +3,25 @@ package com.jobhuntly.backend.service.impl;
 import com.jobhuntly.backend.dto.request.JobFilterRequest;
 import com.jobhuntly.backend.dto.request.JobPatchRequest;
 import com.jobhuntly.backend.dto.request.JobRequest;
+import com.jobhuntly.backend.dto.response.CursorPage;
 import com.jobhuntly.backend.dto.response.JobItemWithStatus;
 import com.jobhuntly.backend.dto.response.JobResponse;
 import com.jobhuntly.backend.entity.*;
 import com.jobhuntly.backend.mapper.JobMapper;
 import com.jobhuntly.backend.repository.*;
 import com.jobhuntly.backend.service.ApplicationService;
+import com.jobhuntly.backend.service.JobSearchFacetService;
 import com.jobhuntly.backend.service.JobService;
 import com.jobhuntly.backend.service.SavedJobService;
+import com.jobhuntly.backend.service.dictionary.JobDictionary;
+import com.jobhuntly.backend.service.search.JobKeywordIndex;
 import lombok.AllArgsConstructor;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -30,17 +36,19 @@ import static com.jobhuntly.backend.constant.CacheConstant.JOB_LIST_DEFAULT;
 @AllArgsConstructor
 @Transactional
 public class JobServiceImpl implements JobService {
+    private static final int MAX_KEYSET_SIZE = 100;
+    private static final String RELEVANCE = "relevance";
+
     private final JobRepository jobRepository;
     private final CompanyRepository companyRepository;
-    private final SkillRepository skillRepository;
     private final WardRepository wardRepository;
     private final JobMapper jobMapper;
-    private final CategoryRepository categoryRepository;
-    private final LevelRepository levelRepository;
-    private final WorkTypeRepository workTypeRepository;
     private final NotificationService notificationService;
     private final SavedJobService savedJobService;
     private final ApplicationService applicationService;
+    private final JobSearchFacetService jobSearchFacetService;
+    private final JobKeywordIndex jobKeywordIndex;
+    private final JobDictionary jobDictionary;
 
 
     @Override
@@ -61,37 +69,25 @@ public class JobServiceImpl implements JobService {
         job.setCompany(companyRef);
 
         if (request.getCategoryNames() != null) {
-            Set<Category> categories = loadExistingByNames(
-                    sanitizeAndDedupNames(request.getCategoryNames()),
-                    categoryRepository::findByNameIgnoreCase
-            );
+            Set<Category> categories = jobDictionary.categories(sanitizeAndDedupNames(request.getCategoryNames()));
             if (!categories.isEmpty()) job.setCategories(categories);
             else throw new IllegalArgumentException("No valid categories found");
         }
 
         if (request.getSkillNames() != null) {
-            Set<Skill> skills = loadExistingByNames(
-                    sanitizeAndDedupNames(request.getSkillNames()),
-                    skillRepository::findByNameIgnoreCase
-            );
+            Set<Skill> skills = jobDictionary.skills(sanitizeAndDedupNames(request.getSkillNames()));
             if (!skills.isEmpty()) job.setSkills(skills);
             else throw new IllegalArgumentException("No valid skills found");
         }
 
         if (request.getLevelNames() != null) {
-            Set<Level> levels = loadExistingByNames(
-                    sanitizeAndDedupNames(request.getLevelNames()),
-                    levelRepository::findByNameIgnoreCase
-            );
+            Set<Level> levels = jobDictionary.levels(sanitizeAndDedupNames(request.getLevelNames()));
             if (!levels.isEmpty()) job.setLevels(levels);
             else throw new IllegalArgumentException("No valid levels found");
         }
 
         if (request.getWorkTypeNames() != null) {
-            Set<WorkType> workTypes = loadExistingByNames(
-                    sanitizeAndDedupNames(request.getWorkTypeNames()),
-                    workTypeRepository::findByNameIgnoreCase
-            );
+            Set<WorkType> workTypes = jobDictionary.workTypes(sanitizeAndDedupNames(request.getWorkTypeNames()));
             if (!workTypes.isEmpty()) job.setWorkTypes(workTypes);
             else throw new IllegalArgumentException("No valid work types found");
         }
@@ -110,6 +106,8 @@ public class JobServiceImpl implements JobService {
         enforceSalaryPolicy(job, request);
 
         Job saved = jobRepository.save(job);
+        jobSearchFacetService.index(saved);
+        jobKeywordIndex.indexAfterCommit(saved);
         try {
             notificationService.notifyNewJobToFollowers(
                     companyRef.getId(),
@@ -162,34 +160,22 @@ public class JobServiceImpl implements JobService {
         }
 
         if (request.getCategoryNames() != null) {
-            Set<Category> categories = loadExistingByNames(
-                    sanitizeAndDedupNames(request.getCategoryNames()),
-                    categoryRepository::findByNameIgnoreCase
-            );
+            Set<Category> categories = jobDictionary.categories(sanitizeAndDedupNames(request.getCategoryNames()));
             job.setCategories(categories);
         }
 
         if (request.getSkillNames() != null) {
-            Set<Skill> skills = loadExistingByNames(
-                    sanitizeAndDedupNames(request.getSkillNames()),
-                    skillRepository::findByNameIgnoreCase
-            );
+            Set<Skill> skills = jobDictionary.skills(sanitizeAndDedupNames(request.getSkillNames()));
             job.setSkills(skills);
         }
 
         if (request.getLevelNames() != null) {
-            Set<Level> levels = loadExistingByNames(
-                    sanitizeAndDedupNames(request.getLevelNames()),
-                    levelRepository::findByNameIgnoreCase
-            );
+            Set<Level> levels = jobDictionary.levels(sanitizeAndDedupNames(request.getLevelNames()));
             job.setLevels(levels);
         }
 
         if (request.getWorkTypeNames() != null) {
-            Set<WorkType> workTypes = loadExistingByNames(
-                    sanitizeAndDedupNames(request.getWorkTypeNames()),
-                    workTypeRepository::findByNameIgnoreCase
-            );
+            Set<WorkType> workTypes = jobDictionary.workTypes(sanitizeAndDedupNames(request.getWorkTypeNames()));
             job.setWorkTypes(workTypes);
         }
 
@@ -212,6 +198,12 @@ public class JobServiceImpl implements JobService {
         enforceSalaryPolicy(job, shim);
 
         Job saved = jobRepository.save(job);
+        if (request.getCategoryNames() != null || request.getSkillNames() != null
+                || request.getLevelNames() != null || request.getWorkTypeNames() != null
+                || request.getWardIds() != null) {
+            jobSearchFacetService.index(saved);
+        }
+        jobKeywordIndex.indexAfterCommit(saved);
         return jobMapper.toResponse(saved);
     }
 
@@ -264,29 +256,7 @@ public class JobServiceImpl implements JobService {
             return Page.empty(pageable);
         }
 
-        List<JobResponse> jobs = page.getContent();
-        List<Long> jobIds = jobs.stream()
-                .map(JobResponse::getId)
-                .filter(Objects::nonNull)
-                .toList();
-
-        final Set<Long> savedIds =
-                (userId == null || jobIds.isEmpty())
-                        ? Collections.emptySet()
-                        : savedJobService.findSavedJobIds(userId, jobIds);
-
-        final Set<Long> appliedIds =
-                (userId == null || jobIds.isEmpty())
-                        ? Collections.emptySet()
-                        : applicationService.findAppliedJobIds(userId, jobIds);
-
-        List<JobItemWithStatus> items = jobs.stream()
-                .map(j -> new JobItemWithStatus(
-                        j,
-                        savedIds.contains(j.getId()),
-                        appliedIds.contains(j.getId())
-                ))
-                .toList();
+        List<JobItemWithStatus> items = withStatus(page.getContent(), userId);
 
         return new PageImpl<>(items, pageable, page.getTotalElements());
     }
@@ -299,42 +269,168 @@ public class JobServiceImpl implements JobService {
 
     @Override
     public Page<JobResponse> searchLite(JobFilterRequest request, Pageable pageable) {
-        Specification<Job> spec = JobSpecifications.build(request);
+        if (isRelevanceSort(pageable)) return searchByRelevance(null, request, pageable);
+        Specification<Job> spec = buildSpec(request);
         Page<Job> page = jobRepository.findAll(spec, pageable);
         List<Long> ids = page.getContent().stream().map(Job::getId).toList();
         if (ids.isEmpty()) return Page.empty(pageable);
 
-        List<Job> rich = jobRepository.findByIdIn(ids);
-        Map<Long, Job> byId = rich.stream().collect(Collectors.toMap(Job::getId, j -> j));
+        return new PageImpl<>(hydrateLite(ids), pageable, page.getTotalElements());
+    }
 
-        List<JobResponse> data = ids.stream()
-                .map(byId::get)
-                .filter(Objects::nonNull)
-                .map(jobMapper::toResponseLite)
-                .toList();
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<JobResponse> searchLiteKeyset(JobFilterRequest request, Sort sort, String cursor,
+                                                    int size, boolean withTotal) {
+        Sort.Order order = (sort == null) ? null : sort.stream().findFirst().orElse(null);
+        if (order == null) order = Sort.Order.desc("id");
+        JobKeysetCursor.SortKey sortKey = JobKeysetCursor.SortKey.fromProperty(order.getProperty());
+        boolean asc = order.isAscending();
+
+        JobKeysetCursor after = null;
+        if (cursor != null && !cursor.isBlank()) {
+            after = JobKeysetCursor.decode(cursor);
+            if (after.sortKey() != sortKey || after.asc() != asc) {
+                throw new IllegalArgumentException("Cursor does not match the requested sort");
+            }
+        }
+
+        int limit = Math.min(Math.max(size, 1), MAX_KEYSET_SIZE);
+        Specification<Job> spec = buildSpec(request);
+
+        // Phase 1: chỉ lấy key, lấy dư 1 dòng để biết còn trang sau (không COUNT)
+        List<JobKeysetCursor> keys = jobRepository.findKeysetIds(spec, sortKey, asc, after, limit + 1);
+        boolean hasNext = keys.size() > limit;
+        if (hasNext) keys = keys.subList(0, limit);
 
-        return new PageImpl<>(data, pageable, page.getTotalElements());
+        // Phase 2: nạp entity đầy đủ theo id, giữ nguyên thứ tự phase 1
+        List<JobResponse> data = hydrateLite(keys.stream().map(JobKeysetCursor::id).toList());
+        String nextCursor = hasNext ? keys.get(keys.size() - 1).encode() : null;
+
+        // COUNT chỉ chạy khi FE yêu cầu và chỉ ở trang đầu
+        Long total = (withTotal && after == null) ? jobRepository.count(spec) : null;
+
+        return new CursorPage<>(data, nextCursor, hasNext, limit, total);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<JobItemWithStatus> searchLiteKeysetWithStatus(JobFilterRequest request, Sort sort, String cursor,
+                                                                    int size, boolean withTotal, Long userId) {
+        CursorPage<JobResponse> page = searchLiteKeyset(request, sort, cursor, size, withTotal);
+        return new CursorPage<>(
+                withStatus(page.getContent(), userId),
+                page.getNextCursor(),
+                page.isHasNext(),
+                page.getSize(),
+                page.getTotalElements()
+        );
     }
 
     @Override
     public Page<JobResponse> searchByCompany(Long companyId, JobFilterRequest request, Pageable pageable) {
+        if (isRelevanceSort(pageable)) return searchByRelevance(companyId, request, pageable);
         Specification<Job> companySpec = (root, query, cb) -> cb.equal(root.get("company").get("id"), companyId);
-        Specification<Job> spec = Specification.allOf(companySpec, JobSpecifications.build(request));
+        Specification<Job> spec = Specification.allOf(companySpec, buildSpec(request));
 
         Page<Job> page = jobRepository.findAll(spec, pageable);
         List<Long> ids = page.getContent().stream().map(Job::getId).toList();
         if (ids.isEmpty()) return Page.empty(pageable);
 
+        return new PageImpl<>(hydrateLite(ids), pageable, page.getTotalElements());
+    }
+
+    private Specification<Job> buildSpec(JobFilterRequest request) {
+        Collection<Long> keywordIds = null;
+        String kw = request.getKeyword();
+        // Index chỉ chứa job còn hiệu lực -> chỉ thay LIKE khi request cũng chỉ lấy job còn hiệu lực;
+        // matchingIds = null khi khớp quá nhiều job -> vẫn dùng LIKE
+        if (kw != null && !kw.isBlank() && onlyActiveJobs(request) && jobKeywordIndex.canSearch(kw)) {
+            keywordIds = jobKeywordIndex.matchingIds(kw);
+        }
+        return JobSpecifications.build(request, jobSearchFacetService.resolve(request), keywordIds);
+    }
+
+    private boolean onlyActiveJobs(JobFilterRequest request) {
+        return Boolean.TRUE.equals(request.getOnlyActive())
+                && !"inactive".equalsIgnoreCase(request.getStatus());
+    }
+
+    private boolean isRelevanceSort(Pageable pageable) {
+        return pageable.getSort().getOrderFor(RELEVANCE) != null;
+    }
+
+    /**
+     * Sort theo điểm BM25 của inverted index: DB chỉ lọc theo các filter còn lại (id-only),
+     * thứ tự + phân trang làm trong memory trên danh sách ứng viên đã xếp hạng.
+     */
+    private Page<JobResponse> searchByRelevance(Long companyId, JobFilterRequest request, Pageable pageable) {
+        String kw = request.getKeyword();
+        if (kw == null || kw.isBlank() || !onlyActiveJobs(request) || !jobKeywordIndex.canSearch(kw)) {
+            // không có keyword / keyword không có token / index chưa sẵn sàng / cần cả job hết hạn
+            // (index không chứa) -> quay về sort mặc định
+            Pageable byId = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(Sort.Direction.DESC, "id"));
+            return (companyId == null)
+                    ? searchLite(request, byId)
+                    : searchByCompany(companyId, request, byId);
+        }
+
+        LinkedHashMap<Long, Double> ranked = jobKeywordIndex.search(kw);
+        if (ranked.isEmpty()) return Page.empty(pageable);
+
+        Specification<Job> spec = JobSpecifications.build(request, jobSearchFacetService.resolve(request), ranked.keySet());
+        if (companyId != null) {
+            Specification<Job> companySpec = (root, query, cb) -> cb.equal(root.get("company").get("id"), companyId);
+            spec = Specification.allOf(companySpec, spec);
+        }
+
+        Set<Long> allowed = jobRepository
+                .findKeysetIds(spec, JobKeysetCursor.SortKey.ID, false, null, ranked.size())
+                .stream()
+                .map(JobKeysetCursor::id)
+                .collect(Collectors.toSet());
+        List<Long> ordered = ranked.keySet().stream().filter(allowed::contains).toList();
+
+        int from = (int) Math.min(pageable.getOffset(), ordered.size());
+        int to = Math.min(from + pageable.getPageSize(), ordered.size());
+        return new PageImpl<>(hydrateLite(ordered.subList(from, to)), pageable, ordered.size());
+    }
+
+    private List<JobResponse> hydrateLite(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
         List<Job> rich = jobRepository.findByIdIn(ids);
         Map<Long, Job> byId = rich.stream().collect(Collectors.toMap(Job::getId, j -> j));
 
-        List<JobResponse> data = ids.stream()
+        return ids.stream()
                 .map(byId::get)
                 .filter(Objects::nonNull)
                 .map(jobMapper::toResponseLite)
                 .toList();
+    }
 
-        return new PageImpl<>(data, pageable, page.getTotalElements());
+    private List<JobItemWithStatus> withStatus(List<JobResponse> jobs, Long userId) {
+        List<Long> jobIds = jobs.stream()
+                .map(JobResponse::getId)
+                .filter(Objects::nonNull)
+                .toList();
+
+        final Set<Long> savedIds =
+                (userId == null || jobIds.isEmpty())
+                        ? Collections.emptySet()
+                        : savedJobService.findSavedJobIds(userId, jobIds);
+
+        final Set<Long> appliedIds =
+                (userId == null || jobIds.isEmpty())
+                        ? Collections.emptySet()
+                        : applicationService.findAppliedJobIds(userId, jobIds);
+
+        return jobs.stream()
+                .map(j -> new JobItemWithStatus(
+                        j,
+                        savedIds.contains(j.getId()),
+                        appliedIds.contains(j.getId())
+                ))
+                .toList();
     }
 
     private void validateDatesAndSalary(JobRequest req) {
@@ -367,16 +463,6 @@ public class JobServiceImpl implements JobService {
         return new ArrayList<>(dedup.values());
     }
 
-    private <E> Set<E> loadExistingByNames(List<String> names,
-                                           Function<String, Optional<E>> finder) {
-        if (names == null || names.isEmpty()) return Set.of();
-        LinkedHashSet<E> result = new LinkedHashSet<>();
-        for (String n : names) {
-            finder.apply(n).ifPresent(result::add);
-        }
-        return result;
-    }
-
     private <E, ID> Set<E> loadExistingByIds(Collection<ID> ids,
                                              Function<Collection<ID>, Iterable<E>> loader) {
         if (ids == null || ids.isEmpty()) return Set.of();
@@ -1,21 +1,20 @@
 package com.jobhuntly.backend.service.impl;
 
 import com.jobhuntly.backend.entity.Interview;
+import com.jobhuntly.backend.entity.MailOutbox;
+import com.jobhuntly.backend.entity.enums.MailChannel;
 import com.jobhuntly.backend.service.MailService;
+import com.jobhuntly.backend.service.email.MailOutboxService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 import org.thymeleaf.context.Context;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 
-import jakarta.mail.internet.MimeMessage;
 import java.time.format.DateTimeFormatter;
 import java.util.Locale;
 import java.util.Map;
-import org.springframework.core.io.ByteArrayResource;
 
 import java.nio.charset.StandardCharsets;
 import java.time.*;
@@ -26,7 +25,7 @@ import java.util.Optional;
 @Slf4j
 public class MailServiceImpl implements MailService {
 
-    private final JavaMailSender mailSender;
+    private final MailOutboxService mailOutbox;
     private final SpringTemplateEngine templateEngine;
 
     @Value("${spring.mail.username:no-reply@jobhuntly.io.vn}")
@@ -50,15 +49,14 @@ public class MailServiceImpl implements MailService {
 
             String html = templateEngine.process(template, ctx);
 
-            MimeMessage msg = mailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(msg, MimeMessageHelper.MULTIPART_MODE_MIXED_RELATED,
-                    "UTF-8");
-            helper.setFrom(fromEmail, appName);
-            helper.setTo(to);
-            helper.setSubject(subject);
-            helper.setText(html, true);
-
-            mailSender.send(msg);
+            mailOutbox.enqueue(MailOutbox.builder()
+                    .channel(MailChannel.DEFAULT)
+                    .fromEmail(fromEmail)
+                    .fromName(appName)
+                    .toEmail(to)
+                    .subject(subject)
+                    .bodyHtml(html)
+                    .build());
         } catch (Exception e) {
             log.error("Failed to send mail '{}' to {}", subject, to, e);
         }
@@ -178,19 +176,19 @@ public class MailServiceImpl implements MailService {
         sendHtml(recruiterEmail, "[Interview] Candidate " + newStatus, tpl, model);
     }
 
-    // Gửi HTML + đính kèm ICS
-    private void sendWithIcs(String to, String subject, String html, byte[] icsBytes) throws Exception {
-        MimeMessage msg = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(msg, true, "UTF-8"); // multipart = true để attach
-        helper.setFrom(fromEmail, appName);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(html, true);
-        helper.addAttachment(
-                "invite.ics",
-                new ByteArrayResource(icsBytes),
-                "text/calendar; charset=UTF-8; method=REQUEST");
-        mailSender.send(msg);
+    // Gửi HTML + đính kèm ICS (qua outbox, gửi sau khi transaction của bên gọi commit)
+    private void sendWithIcs(String to, String subject, String html, byte[] icsBytes) {
+        mailOutbox.enqueue(MailOutbox.builder()
+                .channel(MailChannel.DEFAULT)
+                .fromEmail(fromEmail)
+                .fromName(appName)
+                .toEmail(to)
+                .subject(subject)
+                .bodyHtml(html)
+                .attachmentName("invite.ics")
+                .attachmentType("text/calendar; charset=UTF-8; method=REQUEST")
+                .attachmentData(icsBytes)
+                .build());
     }
 
     // Tạo nội dung ICS (METHOD:REQUEST) đủ chuẩn cho Gmail/Outlook/Apple Calendar
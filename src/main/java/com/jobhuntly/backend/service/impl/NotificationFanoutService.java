@@ -0,0 +1,178 @@
+package com.jobhuntly.backend.service.impl;
+
+import com.jobhuntly.backend.dto.response.NotificationPayload;
+import com.jobhuntly.backend.entity.Follow;
+import com.jobhuntly.backend.repository.FollowRepository;
+import com.jobhuntly.backend.websocket.WsClusterMessenger;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fan-out thông báo tới toàn bộ follower của 1 company trên thread pool riêng:
+ * duyệt follower theo lô (keyset), mỗi lô 1 JDBC batch insert trong transaction ngắn
+ * (chỉ khi {@code persist}; ở chế độ company event thì event đã lưu 1 lần),
+ * rồi push WebSocket cho cả lô. Request tạo job không phải chờ, trừ khi hàng đợi đầy:
+ * khi đó fan-out chạy ngay trên thread gọi (after-commit) thay vì bị bỏ.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationFanoutService {
+    private static final String INSERT_SQL = """
+            INSERT INTO notifications (user_id, type, title, message, company_id, job_id, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private final FollowRepository followRepo;
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final WsClusterMessenger wsMessenger;
+    private final MeterRegistry meterRegistry;
+    private final NotificationUnreadCounter unreadCounter;
+
+    @Value("${app.notification.fanout.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.notification.fanout.threads:2}")
+    private int threads;
+
+    @Value("${app.notification.fanout.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${app.notification.fanout.shutdown-timeout-ms:30000}")
+    private long shutdownTimeoutMs;
+
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate tx;
+    private Counter recipients;
+    private Counter chunks;
+    private Counter callerRuns;
+    private Timer duration;
+
+    public record Fanout(Long companyId, Long jobId, String type, String title, String message, boolean persist) {}
+
+    @PostConstruct
+    void init() {
+        AtomicInteger seq = new AtomicInteger();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "noti-fanout-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                // hàng đợi đầy (hoặc đang shutdown) -> chạy trên thread gọi, không bỏ fan-out
+                (r, e) -> {
+                    callerRuns.increment();
+                    r.run();
+                });
+        tx = new TransactionTemplate(transactionManager);
+
+        recipients = meterRegistry.counter("notification.fanout.recipients");
+        chunks = meterRegistry.counter("notification.fanout.chunks");
+        callerRuns = meterRegistry.counter("notification.fanout.caller-runs");
+        duration = meterRegistry.timer("notification.fanout.duration");
+        Gauge.builder("notification.fanout.active", executor, ThreadPoolExecutor::getActiveCount).register(meterRegistry);
+        Gauge.builder("notification.fanout.queued", executor, e -> e.getQueue().size()).register(meterRegistry);
+    }
+
+    // Không bỏ fan-out còn trong hàng đợi: quá thời gian chờ thì thread shutdown tự chạy nốt
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        if (executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS)) return;
+        List<Runnable> queued = new ArrayList<>();
+        executor.getQueue().drainTo(queued);
+        log.warn("Notification fan-out: running {} queued jobs on shutdown thread", queued.size());
+        queued.forEach(Runnable::run);
+        executor.awaitTermination(shutdownTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    // Đưa vào hàng đợi; hàng đợi đầy thì chạy luôn trên thread gọi (xem rejection handler)
+    public void submit(Fanout fanout) {
+        executor.execute(() -> run(fanout));
+    }
+
+    private void run(Fanout fanout) {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        long sent = 0;
+        int batches = 0;
+        try {
+            Long afterId = 0L;
+            while (true) {
+                List<Follow> page = followRepo.findFollowersAfter(
+                        fanout.companyId(), afterId, PageRequest.of(0, chunkSize));
+                if (page.isEmpty()) break;
+
+                List<Long> uids = new ArrayList<>(page.size());
+                for (Follow f : page) uids.add(f.getUserId());
+                Instant now = Instant.now();
+                if (fanout.persist()) insertChunk(fanout, uids, now);
+                unreadCounter.incrementAll(uids);
+                pushChunk(fanout, uids, now);
+
+                sent += uids.size();
+                batches++;
+                recipients.increment(uids.size());
+                chunks.increment();
+                log.debug("Fan-out company={} job={}: {} recipients so far", fanout.companyId(), fanout.jobId(), sent);
+
+                if (page.size() < chunkSize) break;
+                afterId = page.get(page.size() - 1).getFollowId();
+            }
+            log.info("Fan-out company={} job={} done: {} recipients in {} chunks",
+                    fanout.companyId(), fanout.jobId(), sent, batches);
+        } catch (Exception e) {
+            log.error("Fan-out company={} job={} failed after {} recipients",
+                    fanout.companyId(), fanout.jobId(), sent, e);
+        } finally {
+            sample.stop(duration);
+        }
+    }
+
+    private void insertChunk(Fanout f, List<Long> uids, Instant now) {
+        Timestamp createdAt = Timestamp.from(now);
+        tx.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, uids, uids.size(), (ps, uid) -> {
+            ps.setLong(1, uid);
+            ps.setString(2, f.type());
+            ps.setString(3, f.title());
+            ps.setString(4, f.message());
+            ps.setLong(5, f.companyId());
+            ps.setLong(6, f.jobId());
+            ps.setTimestamp(7, createdAt);
+        }));
+    }
+
+    // Cùng 1 payload cho cả lô; lỗi push 1 user không làm dừng các user khác
+    private void pushChunk(Fanout f, List<Long> uids, Instant now) {
+        var payload = NotificationPayload.builder()
+                .type(f.type()).title(f.title()).message(f.message())
+                .companyId(f.companyId()).jobId(f.jobId())
+                .createdAt(now)
+                .build();
+        List<String> users = new ArrayList<>(uids.size());
+        for (Long uid : uids) users.add(String.valueOf(uid));
+        wsMessenger.sendToUsers(users, "/queue/noti", payload);
+    }
+}
@@ -3,14 +3,20 @@ package com.jobhuntly.backend.service.impl;
 import com.jobhuntly.backend.dto.response.NotificationFeedResponse;
 import com.jobhuntly.backend.dto.response.NotificationItemResponse;
 import com.jobhuntly.backend.entity.Notification;
+import com.jobhuntly.backend.entity.NotificationReadState;
+import com.jobhuntly.backend.repository.CompanyEventRepository;
+import com.jobhuntly.backend.repository.NotificationReadStateRepository;
 import com.jobhuntly.backend.repository.NotificationRepository;
 import com.jobhuntly.backend.service.NotificationPushService;
+import com.jobhuntly.backend.util.TransactionUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -19,21 +25,26 @@ import java.util.List;
 public class NotificationPushServiceImpl implements NotificationPushService {
 
     private final NotificationRepository notificationRepository;
+    private final CompanyEventRepository companyEventRepository;
+    private final NotificationReadStateRepository readStateRepository;
+    private final NotificationUnreadCounter unreadCounter;
 
+    // Đọc từ counter Redis, không có thì COUNT ở DB
     @Override
     public long getUnreadCount(Long userId) {
-        return notificationRepository.countByUserIdAndReadAtIsNull(userId);
+        return unreadCounter.get(userId);
     }
 
+    // Feed = notification cá nhân + company events (id âm) gộp lúc đọc
     @Override
     public NotificationFeedResponse getFeed(Long userId, Pageable pageable) {
-        Page<Notification> page = notificationRepository.findFeedByUser(userId, pageable);
+        Page<Notification> page = notificationRepository.findMergedFeed(userId, companyReadAt(userId), pageable);
 
         List<NotificationItemResponse> items = page.getContent().stream()
                 .map(this::toItem)
                 .toList();
 
-        long unread = notificationRepository.countByUserIdAndReadAtIsNull(userId);
+        long unread = getUnreadCount(userId);
 
         return NotificationFeedResponse.builder()
                 .unreadCount(unread)
@@ -45,15 +56,53 @@ public class NotificationPushServiceImpl implements NotificationPushService {
                 .build();
     }
 
+    /**
+     * Id dương: notification cá nhân. Id âm: company event; đánh dấu bằng cách đẩy watermark
+     * tới event mới nhất trong danh sách (các event cũ hơn cũng thành đã đọc).
+     */
     @Override
     public int markRead(Long userId, List<Long> notificationIds) {
         if (notificationIds == null || notificationIds.isEmpty()) return 0;
-        return notificationRepository.markReadByIds(userId, notificationIds);
+        List<Long> personal = new ArrayList<>();
+        List<Long> eventIds = new ArrayList<>();
+        for (Long id : notificationIds) {
+            if (id == null) continue;
+            if (id > 0) personal.add(id);
+            else if (id < 0) eventIds.add(-id);
+        }
+
+        int personalUpdated = personal.isEmpty() ? 0 : notificationRepository.markReadByIds(userId, personal);
+        int updated = personalUpdated;
+        boolean watermarkMoved = false;
+        if (!eventIds.isEmpty()) {
+            Instant latest = companyEventRepository.findLatestCreatedAt(eventIds);
+            if (latest != null) {
+                readStateRepository.advanceCompanyReadAt(userId, latest);
+                updated += eventIds.size();
+                watermarkMoved = true;
+            }
+        }
+
+        boolean recount = watermarkMoved;
+        TransactionUtils.afterCommit(() -> {
+            if (recount) unreadCounter.invalidate(userId);
+            else unreadCounter.decrement(userId, personalUpdated);
+        });
+        return updated;
     }
 
     @Override
     public int markAllRead(Long userId) {
-        return notificationRepository.markAllRead(userId);
+        readStateRepository.advanceCompanyReadAt(userId, Instant.now());
+        int updated = notificationRepository.markAllRead(userId);
+        TransactionUtils.afterCommit(() -> unreadCounter.invalidate(userId));
+        return updated;
+    }
+
+    private Instant companyReadAt(Long userId) {
+        return readStateRepository.findById(userId)
+                .map(NotificationReadState::getCompanyReadAt)
+                .orElse(null);
     }
 
     private NotificationItemResponse toItem(Notification n) {
@@ -1,24 +1,33 @@
 package com.jobhuntly.backend.service.impl;
 
 import com.jobhuntly.backend.dto.response.NotificationPayload;
+import com.jobhuntly.backend.entity.CompanyEvent;
 import com.jobhuntly.backend.entity.Notification;
-import com.jobhuntly.backend.repository.FollowRepository;
+import com.jobhuntly.backend.repository.CompanyEventRepository;
 import com.jobhuntly.backend.repository.NotificationRepository;
+import com.jobhuntly.backend.service.cache.FollowSetCache;
+import com.jobhuntly.backend.util.TransactionUtils;
+import com.jobhuntly.backend.websocket.WsClusterMessenger;
 import jakarta.transaction.Transactional;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 @Transactional
 public class NotificationService {
     private final NotificationRepository notificationRepo;
-    private final FollowRepository followRepo;
-    private final SimpMessagingTemplate messagingTemplate;
+    private final FollowSetCache followSetCache;
+    private final WsClusterMessenger wsMessenger;
+    private final NotificationFanoutService fanoutService;
+    private final CompanyEventRepository companyEventRepo;
+    private final NotificationUnreadCounter unreadCounter;
+
+    @Value("${app.notification.company-events.enabled:true}")
+    private boolean companyEventsEnabled;
 
     public void notifyApplicationStatus(Long userId,
                                         Long jobId,
@@ -26,7 +35,7 @@ public class NotificationService {
                                         Long applicationId,
                                         String companyName,
                                         String status) {
-        if (companyId != null && !followRepo.existsByUserIdAndCompanyId(userId, companyId)) {
+        if (companyId != null && !followSetCache.isFollowing(userId, companyId)) {
             return; // không follow -> không gửi
         }
         var n = Notification.builder()
@@ -47,31 +56,29 @@ public class NotificationService {
                 .createdAt(n.getCreatedAt())
                 .build();
 
-        messagingTemplate.convertAndSendToUser(String.valueOf(userId),
-                "/queue/noti", payload);
+        TransactionUtils.afterCommit(() -> unreadCounter.increment(userId));
+        wsMessenger.sendToUser(String.valueOf(userId), "/queue/noti", payload);
     }
 
+    /**
+     * Chế độ company event (mặc định): lưu 1 dòng company_events trong transaction tạo job,
+     * follower thấy qua feed lúc đọc; sau commit chỉ còn push WebSocket theo lô.
+     * Tắt cờ thì quay về ghi 1 notification / follower (batch, bất đồng bộ).
+     */
     public void notifyNewJobToFollowers(Long companyId, Long jobId, String companyName, String jobTitle) {
-        List<Long> uids = followRepo.findUserIdsByCompanyId(companyId);
-        for (Long uid : uids) {
-            var n = Notification.builder()
-                    .userId(uid)
-                    .type("NEW_JOB")
-                    .title(companyName+ " has just posted a new job: " +jobTitle)
-                    .message("Apply now.")
+        String title = companyName+ " has just posted a new job: " +jobTitle;
+        String message = "Apply now.";
+        if (companyEventsEnabled) {
+            companyEventRepo.save(CompanyEvent.builder()
                     .companyId(companyId)
                     .jobId(jobId)
-                    .createdAt(Instant.now())
-                    .build();
-            n = notificationRepo.save(n);
-
-            var payload = NotificationPayload.builder()
-                    .type(n.getType()).title(n.getTitle()).message(n.getMessage())
-                    .companyId(companyId).jobId(jobId)
-                    .createdAt(n.getCreatedAt())
-                    .build();
-
-            messagingTemplate.convertAndSendToUser(String.valueOf(uid), "/queue/noti", payload);
+                    .type("NEW_JOB")
+                    .title(title)
+                    .message(message)
+                    .build());
         }
+        var fanout = new NotificationFanoutService.Fanout(
+                companyId, jobId, "NEW_JOB", title, message, !companyEventsEnabled);
+        TransactionUtils.afterCommit(() -> fanoutService.submit(fanout));
     }
 }
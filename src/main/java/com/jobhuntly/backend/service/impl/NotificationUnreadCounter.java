@@ -0,0 +1,228 @@
+package com.jobhuntly.backend.service.impl;
+
+import com.jobhuntly.backend.entity.NotificationReadState;
+import com.jobhuntly.backend.repository.NotificationReadStateRepository;
+import com.jobhuntly.backend.repository.NotificationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RLock;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bộ đếm unread của chuông thông báo trên Redis (key noti:unread:{userId}).
+ * Key chỉ được tạo từ 1 lần COUNT ở DB; insert/markRead chỉ tăng/giảm khi key đã tồn tại,
+ * nên key hết hạn hoặc bị xoá thì lần đọc sau tự nạp lại. Redis lỗi/tắt -> đếm thẳng ở DB.
+ * Job reconcile định kỳ ghi đè lại các key đang có bằng số liệu DB để sửa lệch
+ * (chỉ 1 node chạy mỗi lượt, đếm DB theo lô bằng 1 query group by).
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class NotificationUnreadCounter {
+    private static final String KEY_PREFIX = "noti:unread:";
+    // không dùng KEY_PREFIX để SCAN của reconcile không quét trúng
+    private static final String RECONCILE_LOCK = "noti:reconcile-lock";
+
+    // SET NX: chỉ nạp khi chưa có key, tránh đè lên giá trị đã được tăng song song
+    private static final String LOAD_SCRIPT =
+            "return redis.call('set', KEYS[1], ARGV[1], 'EX', ARGV[2], 'NX') and 1 or 0";
+    // Cộng delta khi key tồn tại, không xuống dưới 0
+    private static final String ADD_SCRIPT = """
+            if redis.call('exists', KEYS[1]) == 0 then return -1 end
+            local v = redis.call('incrby', KEYS[1], ARGV[1])
+            if v < 0 then redis.call('set', KEYS[1], 0, 'KEEPTTL') v = 0 end
+            return v
+            """;
+    // Ghi đè khi key còn tồn tại (reconcile), giữ TTL
+    private static final String OVERWRITE_SCRIPT =
+            "return redis.call('set', KEYS[1], ARGV[1], 'XX', 'KEEPTTL') and 1 or 0";
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationReadStateRepository readStateRepository;
+    private final ObjectProvider<RedissonClient> redissonProvider;
+
+    @Value("${app.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${app.notification.unread-counter.ttl:P7D}")
+    private Duration ttl;
+
+    @Value("${app.notification.unread-counter.reconcile-batch:500}")
+    private int reconcileBatch;
+
+    public long get(Long userId) {
+        RedissonClient redisson = redisson();
+        if (redisson != null) {
+            try {
+                String cached = redisson.<String>getBucket(key(userId), StringCodec.INSTANCE).get();
+                if (cached != null) return Long.parseLong(cached);
+
+                long fromDb = countInDb(userId);
+                script(redisson).eval(RScript.Mode.READ_WRITE, LOAD_SCRIPT, RScript.ReturnType.INTEGER,
+                        List.of(key(userId)), String.valueOf(fromDb), String.valueOf(ttl.toSeconds()));
+                return fromDb;
+            } catch (Exception e) {
+                log.debug("Unread counter unavailable for user {}: {}", userId, e.getMessage());
+            }
+        }
+        return countInDb(userId);
+    }
+
+    public void increment(Long userId) {
+        add(List.of(userId), 1);
+    }
+
+    // Dùng cho fan-out: 1 round-trip cho cả lô user
+    public void incrementAll(Collection<Long> userIds) {
+        add(userIds, 1);
+    }
+
+    public void decrement(Long userId, int by) {
+        if (by > 0) add(List.of(userId), -by);
+    }
+
+    // Không biết chính xác đã giảm bao nhiêu (vd đẩy watermark) -> xoá để lần sau nạp lại từ DB
+    public void invalidate(Long userId) {
+        RedissonClient redisson = redisson();
+        if (redisson == null) return;
+        try {
+            redisson.getBucket(key(userId), StringCodec.INSTANCE).delete();
+        } catch (Exception e) {
+            log.debug("Invalidate unread counter for user {} failed: {}", userId, e.getMessage());
+        }
+    }
+
+    public long countInDb(Long userId) {
+        Instant companyReadAt = readStateRepository.findById(userId)
+                .map(NotificationReadState::getCompanyReadAt)
+                .orElse(null);
+        return notificationRepository.countByUserIdAndReadAtIsNull(userId)
+                + notificationRepository.countUnreadCompanyEvents(userId, companyReadAt);
+    }
+
+    @Scheduled(fixedDelayString = "${app.notification.unread-counter.reconcile-delay-ms:600000}",
+            initialDelayString = "${app.notification.unread-counter.reconcile-delay-ms:600000}")
+    public void reconcile() {
+        RedissonClient redisson = redisson();
+        if (redisson == null) return;
+        RLock lock = redisson.getLock(RECONCILE_LOCK);
+        try {
+            // node khác đang chạy lượt này -> bỏ qua
+            if (!lock.tryLock()) return;
+        } catch (Exception e) {
+            log.debug("Unread counter reconcile lock unavailable: {}", e.getMessage());
+            return;
+        }
+        int checked = 0;
+        int fixed = 0;
+        try {
+            List<String> keys = new ArrayList<>(reconcileBatch);
+            for (String k : redisson.getKeys().getKeysByPattern(KEY_PREFIX + "*", reconcileBatch)) {
+                keys.add(k);
+                if (keys.size() == reconcileBatch) {
+                    fixed += reconcileKeys(redisson, keys);
+                    checked += keys.size();
+                    keys.clear();
+                }
+            }
+            if (!keys.isEmpty()) {
+                fixed += reconcileKeys(redisson, keys);
+                checked += keys.size();
+            }
+        } catch (Exception e) {
+            log.warn("Unread counter reconcile stopped after {} keys: {}", checked, e.getMessage());
+        } finally {
+            unlockQuietly(lock);
+        }
+        if (fixed > 0) log.info("Unread counter reconcile: {} keys checked, {} repaired", checked, fixed);
+    }
+
+    private int reconcileKeys(RedissonClient redisson, List<String> keys) {
+        RBatch read = redisson.createBatch();
+        for (String k : keys) read.getBucket(k, StringCodec.INSTANCE).getAsync();
+        List<?> cached = read.execute().getResponses();
+
+        List<Long> userIds = new ArrayList<>(keys.size());
+        for (int i = 0; i < keys.size(); i++) {
+            Long userId = userId(keys.get(i));
+            if (cached.get(i) != null && userId != null) userIds.add(userId);
+        }
+        Map<Long, Long> counts = notificationRepository.countUnreadByUserIds(userIds);
+
+        RBatch write = redisson.createBatch();
+        int fixed = 0;
+        for (int i = 0; i < keys.size(); i++) {
+            Object current = cached.get(i);
+            if (current == null) continue;
+            Long userId = userId(keys.get(i));
+            if (userId == null) continue;
+            long actual = counts.getOrDefault(userId, 0L);
+            if (!String.valueOf(actual).equals(current.toString())) {
+                write.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, OVERWRITE_SCRIPT,
+                        RScript.ReturnType.INTEGER, List.of(keys.get(i)), String.valueOf(actual));
+                fixed++;
+            }
+        }
+        if (fixed > 0) write.execute();
+        return fixed;
+    }
+
+    private void add(Collection<Long> userIds, long delta) {
+        if (userIds == null || userIds.isEmpty()) return;
+        RedissonClient redisson = redisson();
+        if (redisson == null) return;
+        try {
+            RBatch batch = redisson.createBatch();
+            for (Long uid : userIds) {
+                batch.getScript(StringCodec.INSTANCE).evalAsync(RScript.Mode.READ_WRITE, ADD_SCRIPT,
+                        RScript.ReturnType.INTEGER, List.of(key(uid)), String.valueOf(delta));
+            }
+            batch.execute();
+        } catch (Exception e) {
+            // lệch tạm thời, reconcile sẽ sửa
+            log.debug("Unread counter update failed for {} users: {}", userIds.size(), e.getMessage());
+        }
+    }
+
+    private static void unlockQuietly(RLock lock) {
+        try {
+            if (lock.isHeldByCurrentThread()) lock.unlock();
+        } catch (Exception e) {
+            log.debug("Unread counter reconcile unlock failed: {}", e.getMessage());
+        }
+    }
+
+    private RedissonClient redisson() {
+        return redisEnabled ? redissonProvider.getIfAvailable() : null;
+    }
+
+    private static RScript script(RedissonClient redisson) {
+        return redisson.getScript(StringCodec.INSTANCE);
+    }
+
+    private static String key(Long userId) {
+        return KEY_PREFIX + userId;
+    }
+
+    private static Long userId(String key) {
+        try {
+            return Long.valueOf(key.substring(KEY_PREFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
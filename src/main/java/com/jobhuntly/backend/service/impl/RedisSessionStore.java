@@ -0,0 +1,149 @@
+package com.jobhuntly.backend.service.impl;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RScript;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Trạng thái refresh token trên Redis khi {@code app.session-store.mode=redis}:
+ * <ul>
+ *   <li>{@code rt:{hash}} - hash {uid, fam, exp, st} với st = A (đang dùng) | R (đã rotate) | X (thu hồi),
+ *   hết hạn cùng refresh token; khi rotate ghi thêm rat (thời điểm rotate) và nx (hash kế nhiệm);</li>
+ *   <li>{@code rtfam:{familyId}} - tập hash của 1 family (để thu hồi cả family khi reuse);</li>
+ *   <li>{@code rtuser:{userId}} - tập family của user (revokeAll).</li>
+ * </ul>
+ * Rotate / phát hiện reuse chạy trong 1 script Lua. Token đã rotate được dùng lại trong
+ * {@code app.session-store.reuse-grace-ms} (các XHR song song cùng cookie) thì được cấp thêm 1 token kế nhiệm
+ * thay vì bị coi là reuse - miễn token kế nhiệm chưa bị thu hồi; quá khoảng đó mới thu hồi cả family.
+ * Script đụng key suy ra từ dữ liệu (family, user) -> cần Redis đơn node / không cluster.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RedisSessionStore {
+    private static final String RT = "rt:";
+    private static final String FAMILY = "rtfam:";
+    private static final String USER = "rtuser:";
+
+    private static final String PUT_SCRIPT = """
+            redis.call('hset', KEYS[1], 'uid', ARGV[2], 'fam', ARGV[3], 'exp', ARGV[4], 'st', 'A')
+            redis.call('pexpireat', KEYS[1], ARGV[4])
+            redis.call('sadd', KEYS[2], ARGV[1])
+            redis.call('pexpireat', KEYS[2], ARGV[4])
+            redis.call('sadd', KEYS[3], ARGV[3])
+            redis.call('pexpireat', KEYS[3], ARGV[4])
+            return 1
+            """;
+
+    // KEYS[1] = rt:{old}; ARGV = newHash, now, newExp, prefix rt, prefix family, prefix user, grace ms
+    private static final String ROTATE_SCRIPT = """
+            local st = redis.call('hget', KEYS[1], 'st')
+            if not st then return {'MISSING'} end
+            local uid = redis.call('hget', KEYS[1], 'uid')
+            local fam = redis.call('hget', KEYS[1], 'fam')
+            if tonumber(redis.call('hget', KEYS[1], 'exp')) <= tonumber(ARGV[2]) then
+              redis.call('hset', KEYS[1], 'st', 'X')
+              return {'EXPIRED', uid, fam}
+            end
+            if st == 'R' then
+              local rat = tonumber(redis.call('hget', KEYS[1], 'rat') or '0')
+              local nx = redis.call('hget', KEYS[1], 'nx')
+              local nst = nx and redis.call('hget', ARGV[4] .. nx, 'st')
+              if tonumber(ARGV[2]) - rat > tonumber(ARGV[7]) then
+                for _, h in ipairs(redis.call('smembers', ARGV[5] .. fam)) do
+                  if redis.call('exists', ARGV[4] .. h) == 1 then redis.call('hset', ARGV[4] .. h, 'st', 'X') end
+                end
+                return {'REUSED', uid, fam}
+              end
+              if nst == 'X' or not nst then return {'REVOKED', uid, fam} end
+            elseif st ~= 'A' then
+              return {'REVOKED', uid, fam}
+            else
+              redis.call('hset', KEYS[1], 'st', 'R', 'rat', ARGV[2], 'nx', ARGV[1])
+            end
+            local nk = ARGV[4] .. ARGV[1]
+            redis.call('hset', nk, 'uid', uid, 'fam', fam, 'exp', ARGV[3], 'st', 'A')
+            redis.call('pexpireat', nk, ARGV[3])
+            redis.call('sadd', ARGV[5] .. fam, ARGV[1])
+            redis.call('pexpireat', ARGV[5] .. fam, ARGV[3])
+            redis.call('pexpireat', ARGV[6] .. uid, ARGV[3])
+            return {'OK', uid, fam}
+            """;
+
+    private static final String REVOKE_SCRIPT = """
+            if redis.call('exists', KEYS[1]) == 0 then return 0 end
+            redis.call('hset', KEYS[1], 'st', 'X')
+            return 1
+            """;
+
+    // KEYS[1] = rtuser:{uid}; ARGV = prefix rt, prefix family
+    private static final String REVOKE_USER_SCRIPT = """
+            local n = 0
+            for _, fam in ipairs(redis.call('smembers', KEYS[1])) do
+              for _, h in ipairs(redis.call('smembers', ARGV[2] .. fam)) do
+                local k = ARGV[1] .. h
+                if redis.call('hget', k, 'st') == 'A' then n = n + 1 end
+                if redis.call('exists', k) == 1 then redis.call('hset', k, 'st', 'X') end
+              end
+            end
+            return n
+            """;
+
+    public enum Outcome { OK, MISSING, EXPIRED, REUSED, REVOKED }
+
+    public record Rotation(Outcome outcome, Long userId, String familyId) {}
+
+    private final ObjectProvider<RedissonClient> redissonProvider;
+
+    @Value("${app.redis.enabled:true}")
+    private boolean redisEnabled;
+
+    @Value("${app.session-store.mode:db}")
+    private String mode;
+
+    @Value("${app.session-store.reuse-grace-ms:10000}")
+    private long reuseGraceMs;
+
+    /** Redis là nguồn chính cho rotate (mode=redis và có Redis). */
+    public boolean active() {
+        return redisEnabled && "redis".equalsIgnoreCase(mode) && redissonProvider.getIfAvailable() != null;
+    }
+
+    public void put(String hash, Long userId, String familyId, Instant expiresAt) {
+        script().eval(RScript.Mode.READ_WRITE, PUT_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(RT + hash, FAMILY + familyId, USER + userId),
+                hash, String.valueOf(userId), familyId, String.valueOf(expiresAt.toEpochMilli()));
+    }
+
+    public Rotation rotate(String oldHash, String newHash, Instant now, Instant newExpiresAt) {
+        List<Object> r = script().eval(RScript.Mode.READ_WRITE, ROTATE_SCRIPT, RScript.ReturnType.MULTI,
+                List.of(RT + oldHash),
+                newHash, String.valueOf(now.toEpochMilli()), String.valueOf(newExpiresAt.toEpochMilli()),
+                RT, FAMILY, USER, String.valueOf(reuseGraceMs));
+        Outcome outcome = Outcome.valueOf(String.valueOf(r.get(0)));
+        if (r.size() < 3) return new Rotation(outcome, null, null);
+        return new Rotation(outcome, Long.valueOf(String.valueOf(r.get(1))), String.valueOf(r.get(2)));
+    }
+
+    public void revoke(String hash) {
+        script().eval(RScript.Mode.READ_WRITE, REVOKE_SCRIPT, RScript.ReturnType.INTEGER, List.of(RT + hash));
+    }
+
+    public int revokeUser(Long userId) {
+        Long n = script().eval(RScript.Mode.READ_WRITE, REVOKE_USER_SCRIPT, RScript.ReturnType.INTEGER,
+                List.of(USER + userId), RT, FAMILY);
+        return n == null ? 0 : n.intValue();
+    }
+
+    private RScript script() {
+        return redissonProvider.getObject().getScript(StringCodec.INSTANCE);
+    }
+}
@@ -0,0 +1,131 @@
+package com.jobhuntly.backend.service.impl;
+
+import com.jobhuntly.backend.entity.UserSession;
+import com.jobhuntly.backend.repository.UserRepository;
+import com.jobhuntly.backend.repository.UserSessionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi {@code user_sessions} bất đồng bộ khi session store chạy trên Redis: bảng chỉ còn là nhật ký
+ * (danh sách thiết bị, điều tra reuse), request refresh không chờ DB.
+ * 1 thread duy nhất để các sự kiện của cùng 1 chuỗi rotate được ghi đúng thứ tự (cha trước con).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionAuditLog {
+
+    private final UserSessionRepository sessionRepo;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.session-store.audit-queue-capacity:10000}")
+    private int queueCapacity;
+
+    private ThreadPoolExecutor executor;
+    private TransactionTemplate tx;
+
+    public record Rotated(String oldHash, String newHash, String familyId, Long userId,
+                          Instant at, Instant expiresAt, String ipAddress, String userAgent) {}
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+        executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "session-audit");
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        // cố ghi nốt phần còn trong hàng đợi
+        executor.shutdown();
+        try {
+            executor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public void rotated(Rotated e) {
+        submit("rotate", () -> {
+            UserSession s1 = sessionRepo.findByRefreshTokenHash(e.oldHash()).orElse(null);
+            UserSession s2 = UserSession.builder()
+                    .user(userRepository.getReferenceById(e.userId()))
+                    .sessionFamilyId(e.familyId())
+                    .parent(s1)
+                    .refreshTokenHash(e.newHash())
+                    .refreshExpiresAt(e.expiresAt())
+                    .createdAt(e.at())
+                    .lastSeenAt(e.at())
+                    .ipAddress(e.ipAddress())
+                    .userAgent(e.userAgent())
+                    .deviceLabel(s1 != null ? s1.getDeviceLabel() : null)
+                    .build();
+            sessionRepo.save(s2);
+            if (s1 != null) {
+                s1.setReplacedBy(s2);
+                s1.setRevokedAt(e.at());
+                s1.setLastSeenAt(e.at());
+                sessionRepo.save(s1);
+            }
+        });
+    }
+
+    public void revoked(String hash, Instant at) {
+        submit("revoke", () -> sessionRepo.findByRefreshTokenHash(hash).ifPresent(s -> {
+            if (s.getRevokedAt() == null) {
+                s.setRevokedAt(at);
+                sessionRepo.save(s);
+            }
+        }));
+    }
+
+    public void reuseDetected(String hash, String familyId, Instant at) {
+        submit("reuse", () -> {
+            sessionRepo.findByRefreshTokenHash(hash).ifPresent(s -> {
+                if (s.getReuseDetectedAt() == null) {
+                    s.setReuseDetectedAt(at);
+                    sessionRepo.save(s);
+                }
+            });
+            sessionRepo.revokeFamily(familyId);
+        });
+    }
+
+    public void revokedAll(Long userId) {
+        submit("revoke-all", () -> sessionRepo.revokeAllByUserId(userId));
+    }
+
+    private void submit(String what, Runnable work) {
+        try {
+            executor.execute(() -> {
+                try {
+                    tx.executeWithoutResult(s -> work.run());
+                } catch (Exception ex) {
+                    log.warn("Session audit '{}' failed: {}", what, ex.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            // Redis vẫn là nguồn đúng; chỉ mất 1 dòng nhật ký
+            log.warn("Session audit queue full, dropped '{}'", what);
+        }
+    }
+}
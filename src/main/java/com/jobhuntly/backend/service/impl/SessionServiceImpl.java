@@ -4,19 +4,27 @@ import com.jobhuntly.backend.dto.auth.RefreshResult;
 import com.jobhuntly.backend.dto.auth.StartSessionResult;
 import com.jobhuntly.backend.entity.User;
 import com.jobhuntly.backend.entity.UserSession;
+import com.jobhuntly.backend.repository.UserRepository;
 import com.jobhuntly.backend.repository.UserSessionRepository;
+import com.jobhuntly.backend.security.PrincipalSnapshotCache;
 import com.jobhuntly.backend.security.jwt.JwtProperties;
 import com.jobhuntly.backend.service.SessionService;
+import jakarta.annotation.PostConstruct;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.codec.digest.DigestUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.security.SecureRandom;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.List;
@@ -29,6 +37,24 @@ public class SessionServiceImpl implements SessionService {
 
     private final UserSessionRepository sessionRepo;
     private final JwtProperties jwtProps;
+    private final PrincipalSnapshotCache principalCache;
+    private final RedisSessionStore redisStore;
+    private final SessionAuditLog auditLog;
+    private final UserRepository userRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${app.session-store.prune-retention:P30D}")
+    private Duration pruneRetention;
+
+    @Value("${app.session-store.prune-batch:1000}")
+    private int pruneBatch;
+
+    private TransactionTemplate pruneTx;
+
+    @PostConstruct
+    void init() {
+        pruneTx = new TransactionTemplate(transactionManager);
+    }
 
     private static final SecureRandom RNG = new SecureRandom();
 
@@ -55,6 +81,14 @@ public class SessionServiceImpl implements SessionService {
                 .build();
 
         sessionRepo.save(s);
+        if (redisStore.active()) {
+            try {
+                redisStore.put(hash, user.getId(), familyId, exp);
+            } catch (Exception e) {
+                // rotate sẽ không thấy key trên Redis và đi đường DB
+                log.warn("Cannot store session in Redis: {}", e.getMessage());
+            }
+        }
         return new StartSessionResult(raw, s);
     }
 
@@ -66,6 +100,66 @@ public class SessionServiceImpl implements SessionService {
         }
         String hash = DigestUtils.sha256Hex(rawRefreshToken);
 
+        if (redisStore.active()) {
+            RefreshResult viaRedis = rotateInRedis(hash, req);
+            if (viaRedis != null) return viaRedis;
+        }
+        return rotateInDb(hash, req);
+    }
+
+    /**
+     * Rotate trên Redis (1 script Lua, không đụng bảng user_sessions); DB chỉ nhận nhật ký bất đồng bộ.
+     * Trả null khi token không có trên Redis (phiên tạo trước khi bật mode redis) hoặc Redis lỗi -> đi đường DB.
+     */
+    private RefreshResult rotateInRedis(String hash, HttpServletRequest req) {
+        Instant now = Instant.now();
+        String raw2 = newUrlSafeToken(32);
+        String hash2 = DigestUtils.sha256Hex(raw2);
+        Instant exp2 = now.plus(jwtProps.getRefreshTtl());
+
+        RedisSessionStore.Rotation r;
+        try {
+            r = redisStore.rotate(hash, hash2, now, exp2);
+        } catch (Exception e) {
+            log.warn("Redis session store unavailable, rotating in DB: {}", e.getMessage());
+            return null;
+        }
+
+        switch (r.outcome()) {
+            case MISSING:
+                return null;
+            case EXPIRED:
+                auditLog.revoked(hash, now);
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh expired");
+            case REUSED:
+                auditLog.reuseDetected(hash, r.familyId(), now);
+                log.warn("Detected refresh reuse; revoked family={}", r.familyId());
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh revoked");
+            case REVOKED:
+                throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Refresh revoked");
+            default:
+                break;
+        }
+
+        String ip = clientIp(req);
+        String ua = safe(req != null ? req.getHeader("User-Agent") : null, 255);
+        auditLog.rotated(new SessionAuditLog.Rotated(hash, hash2, r.familyId(), r.userId(), now, exp2, ip, ua));
+
+        // phiên mới chưa có trong DB (nhật ký ghi sau); user chỉ là reference, không load
+        UserSession s2 = UserSession.builder()
+                .user(userRepository.getReferenceById(r.userId()))
+                .sessionFamilyId(r.familyId())
+                .refreshTokenHash(hash2)
+                .refreshExpiresAt(exp2)
+                .createdAt(now)
+                .lastSeenAt(now)
+                .ipAddress(ip)
+                .userAgent(ua)
+                .build();
+        return new RefreshResult(r.userId(), raw2, s2);
+    }
+
+    private RefreshResult rotateInDb(String hash, HttpServletRequest req) {
         UserSession s1 = sessionRepo.findByRefreshTokenHash(hash)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Invalid refresh token"));
 
@@ -108,7 +202,15 @@ public class SessionServiceImpl implements SessionService {
         s1.setLastSeenAt(now);
         sessionRepo.save(s1);
 
-        return new RefreshResult(s1.getUser(), raw2, s2);
+        if (redisStore.active()) {
+            // phiên cũ từ DB: từ lần rotate này chuỗi đi qua Redis
+            try {
+                redisStore.put(hash2, s1.getUser().getId(), s1.getSessionFamilyId(), s2.getRefreshExpiresAt());
+            } catch (Exception e) {
+                log.warn("Cannot store session in Redis: {}", e.getMessage());
+            }
+        }
+        return new RefreshResult(s1.getUser().getId(), raw2, s2);
     }
 
     @Override
@@ -116,18 +218,36 @@ public class SessionServiceImpl implements SessionService {
     public void revokeCurrent(String rawRefreshToken) {
         if (rawRefreshToken == null || rawRefreshToken.isBlank()) return;
         String hash = DigestUtils.sha256Hex(rawRefreshToken);
-        sessionRepo.findByRefreshTokenHash(hash).ifPresent(s -> {
-            if (s.getRevokedAt() == null) {
-                s.setRevokedAt(Instant.now());
-                sessionRepo.save(s);
+        if (redisStore.active()) {
+            try {
+                redisStore.revoke(hash);
+                // dòng rotate còn chờ trong hàng đợi nhật ký ghi sau -> thu hồi lại theo cùng thứ tự
+                auditLog.revoked(hash, Instant.now());
+            } catch (Exception e) {
+                log.warn("Cannot revoke session in Redis: {}", e.getMessage());
             }
-        });
+        }
+        // luôn thu hồi đồng bộ trong DB: phiên tạo trước khi bật mode redis không có key trên Redis
+        // và rotate sẽ đi đường DB; hàng đợi nhật ký có thể bỏ sự kiện nên không được dựa vào nó
+        sessionRepo.revokeByRefreshTokenHash(hash);
     }
 
     @Override
     @Transactional
     public int revokeAll(Long userId) {
-        return sessionRepo.revokeAllByUserId(userId);
+        principalCache.evictAfterCommit(userId);
+        int inRedis = 0;
+        if (redisStore.active()) {
+            try {
+                inRedis = redisStore.revokeUser(userId);
+                auditLog.revokedAll(userId);
+            } catch (Exception e) {
+                log.warn("Cannot revoke sessions in Redis for user {}: {}", userId, e.getMessage());
+            }
+        }
+        // đồng bộ ở cả 2 mode (xem revokeCurrent)
+        int inDb = sessionRepo.revokeAllByUserId(userId);
+        return Math.max(inRedis, inDb);
     }
 
     @Override
@@ -141,6 +261,19 @@ public class SessionServiceImpl implements SessionService {
     }
 
 
+    /** Xoá theo lô các phiên đã hết hạn quá thời gian giữ nhật ký, tránh bảng phình vô hạn. */
+    @Scheduled(fixedDelayString = "${app.session-store.prune-delay-ms:3600000}", initialDelay = 60_000)
+    public void pruneExpired() {
+        Instant cutoff = Instant.now().minus(pruneRetention);
+        int total = 0;
+        int n;
+        do {
+            n = pruneTx.execute(s -> sessionRepo.deleteExpiredBatch(cutoff, pruneBatch));
+            total += n;
+        } while (n == pruneBatch);
+        if (total > 0) log.info("Pruned {} expired user session(s)", total);
+    }
+
     private void markReuseAndRevokeFamily(UserSession reused, Instant when) {
         if (reused.getReuseDetectedAt() == null) {
             reused.setReuseDetectedAt(when);
@@ -8,6 +8,7 @@ import com.jobhuntly.backend.mapper.SkillMapper;
 import com.jobhuntly.backend.repository.CategoryRepository;
 import com.jobhuntly.backend.repository.SkillRepository;
 import com.jobhuntly.backend.service.SkillService;
+import com.jobhuntly.backend.service.dictionary.JobDictionary;
 import lombok.AllArgsConstructor;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
@@ -25,6 +26,7 @@ public class SkillServiceImpl implements SkillService {
     private final SkillRepository skillRepository;
     private final CategoryRepository categoryRepository;
     private final SkillMapper skillMapper;
+    private final JobDictionary jobDictionary;
 
     @Override
     public SkillResponse createSkill(SkillRequest request) {
@@ -47,10 +49,7 @@ public class SkillServiceImpl implements SkillService {
         }
 
         // Find existing category
-        Set<Category> categories = normalized.stream()
-                .map(n -> categoryRepository.findByNameIgnoreCase(n).orElse(null))
-                .filter(Objects::nonNull)
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<Category> categories = jobDictionary.categories(normalized);
 
         if (categories.isEmpty()) {
             throw new IllegalArgumentException("No valid categories found");
@@ -60,6 +59,7 @@ public class SkillServiceImpl implements SkillService {
         skill.setCategories(categories);
 
         Skill saved = skillRepository.save(skill);
+        jobDictionary.refreshAfterCommit(JobDictionary.Type.SKILL);
         return skillMapper.toResponse(saved);
     }
 
@@ -8,6 +8,7 @@ import com.jobhuntly.backend.exception.ResourceNotFoundException;
 import com.jobhuntly.backend.mapper.RoleMapper;
 import com.jobhuntly.backend.mapper.UserMapper;
 import com.jobhuntly.backend.repository.UserRepository;
+import com.jobhuntly.backend.security.PrincipalSnapshotCache;
 import com.jobhuntly.backend.security.SecurityUtils;
 import com.jobhuntly.backend.service.UserService;
 import lombok.RequiredArgsConstructor;
@@ -25,6 +26,7 @@ public class UserServiceImpl implements UserService {
     private final UserMapper userMapper;
     private final RoleMapper roleMapper;
     private final PasswordEncoder passwordEncoder;
+    private final PrincipalSnapshotCache principalCache;
 
     @Override
     public Page<UserDto> findAllByRole(String role, Pageable pageable) {
@@ -107,6 +109,11 @@ public class UserServiceImpl implements UserService {
         if (userRequest.getRoleId() != null) {
             existingUser.setRole(roleMapper.roleIdToRole(userRequest.getRoleId()));
         }
+
+        // role / trạng thái (ban) đổi -> snapshot dùng cho silent refresh phải nạp lại
+        if (userRequest.getStatus() != null || userRequest.getRoleId() != null || userRequest.getIsActive() != null) {
+            principalCache.evictAfterCommit(existingUser.getId());
+        }
         
         User updatedUser = userRepository.save(existingUser);
         return userMapper.toDto(updatedUser);
@@ -119,6 +126,7 @@ public class UserServiceImpl implements UserService {
             throw new ResourceNotFoundException("User không tồn tại với ID: " + id);
         }
         userRepository.deleteById(id);
+        principalCache.evictAfterCommit(id);
     }
 
     @Override
@@ -0,0 +1,412 @@
+package com.jobhuntly.backend.service.search;
+
+import com.jobhuntly.backend.entity.Job;
+import com.jobhuntly.backend.entity.Skill;
+import com.jobhuntly.backend.repository.JobKeysetCursor;
+import com.jobhuntly.backend.repository.JobRepository;
+import com.jobhuntly.backend.repository.JobSpecifications;
+import com.jobhuntly.backend.util.CommonUtils;
+import com.jobhuntly.backend.util.TransactionUtils;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RedissonClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Inverted index in-memory cho keyword search trên job còn hiệu lực
+ * (title, description, requirements, skill names), chấm điểm BM25.
+ * Build lại lúc startup và định kỳ ({@code rebuild-interval-ms}, bắt các thay đổi không đi qua service),
+ * cập nhật incremental sau commit của create/patch và khi job hết hạn. Job id vừa đổi được publish qua Redis
+ * để các node khác nạp lại job đó từ DB. Trong lúc chưa build xong thì {@link #isReady()} = false
+ * và search quay về LIKE trên title như cũ.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class JobKeywordIndex {
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+
+    // trọng số field: title quan trọng nhất, rồi tới skill
+    private static final int W_TITLE = 3;
+    private static final int W_SKILL = 2;
+    private static final int W_BODY = 1;
+
+    private static final String CHANGED_TOPIC = "search:job-index";
+
+    private static final int REBUILD_BATCH = 500;
+    private static final int MIN_PREFIX_LEN = 2;
+
+    private final JobRepository jobRepository;
+    private final ObjectProvider<RedissonClient> redissonProvider;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    @Value("${app.search.keyword-index.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.search.keyword-index.max-candidates:2000}")
+    private int maxCandidates;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>();
+    private final Map<Long, IndexedDoc> docs = new HashMap<>();
+    private long totalLength;
+    private volatile boolean ready;
+
+    // Thay đổi incremental xảy ra trong lúc rebuild đang nạp snapshot (giữ bản mới nhất mỗi job),
+    // được áp lại sau khi swap để không bị snapshot cũ ghi đè. Chỉ đọc/ghi khi giữ write lock.
+    private boolean rebuilding;
+    private final Map<Long, Delta> pendingDeltas = new HashMap<>();
+
+    private record IndexedDoc(int length, Set<String> terms, LocalDate expiredDate) {}
+
+    // tf == null nghĩa là gỡ job khỏi index
+    private record Delta(Map<String, Integer> tf, LocalDate expiredDate) {}
+
+    public boolean isReady() {
+        return enabled && ready;
+    }
+
+    public int maxCandidates() {
+        return maxCandidates;
+    }
+
+    @PostConstruct
+    void subscribe() {
+        RedissonClient redisson = redissonProvider.getIfAvailable();
+        if (!enabled || redisson == null) return;
+        try {
+            redisson.getTopic(CHANGED_TOPIC).addListener(String.class, (channel, msg) -> {
+                // msg = "<nodeId>:<jobId>"; bỏ qua message do chính node này gửi
+                int sep = msg.indexOf(':');
+                if (sep < 0 || msg.substring(0, sep).equals(nodeId)) return;
+                try {
+                    reload(Long.valueOf(msg.substring(sep + 1)));
+                } catch (NumberFormatException ignore) {
+                    // message lạ -> bỏ qua
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Cannot subscribe to {}: {}", CHANGED_TOPIC, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!enabled) return;
+        Thread t = new Thread(this::rebuild, "job-keyword-index-rebuild");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    @Scheduled(initialDelayString = "${app.search.keyword-index.rebuild-interval-ms:3600000}",
+            fixedDelayString = "${app.search.keyword-index.rebuild-interval-ms:3600000}")
+    public void scheduledRebuild() {
+        if (enabled) rebuild();
+    }
+
+    public synchronized void rebuild() {
+        long started = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            rebuilding = true;
+            pendingDeltas.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Map<Long, Map<String, Integer>> built = new HashMap<>();
+        Map<Long, LocalDate> expiries = new HashMap<>();
+        try {
+            JobKeysetCursor after = null;
+            while (true) {
+                List<JobKeysetCursor> keys = jobRepository.findKeysetIds(
+                        JobSpecifications.activeForIndex(), JobKeysetCursor.SortKey.ID, true, after, REBUILD_BATCH);
+                if (keys.isEmpty()) break;
+                List<Job> jobs = jobRepository.findByIdIn(keys.stream().map(JobKeysetCursor::id).toList());
+                for (Job j : jobs) {
+                    built.put(j.getId(), termFrequencies(j));
+                    expiries.put(j.getId(), j.getExpiredDate());
+                }
+                if (keys.size() < REBUILD_BATCH) break;
+                after = keys.get(keys.size() - 1);
+            }
+        } catch (Exception e) {
+            log.error("Job keyword index rebuild failed", e);
+            lock.writeLock().lock();
+            try {
+                rebuilding = false;
+                pendingDeltas.clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+
+        int replayed;
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            docs.clear();
+            totalLength = 0;
+            built.forEach((id, tf) -> putLocked(id, tf, expiries.get(id)));
+            // snapshot có thể đọc bản cũ của job vừa được sửa trong lúc nạp -> áp lại các thay đổi đó
+            replayed = pendingDeltas.size();
+            pendingDeltas.forEach((id, d) -> {
+                removeLocked(id);
+                if (d.tf() != null) putLocked(id, d.tf(), d.expiredDate());
+            });
+            pendingDeltas.clear();
+            rebuilding = false;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Job keyword index rebuilt: {} jobs, {} terms, {} replayed changes in {} ms",
+                docs.size(), postings.size(), replayed, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Cập nhật index cho job sau khi transaction hiện tại commit
+     * (rollback thì không đụng tới index). Job không còn active sẽ bị gỡ khỏi index.
+     */
+    public void indexAfterCommit(Job job) {
+        if (!enabled || job == null || job.getId() == null) return;
+        Long id = job.getId();
+        boolean active = isActive(job);
+        Map<String, Integer> tf = active ? termFrequencies(job) : null;
+        LocalDate expiredDate = job.getExpiredDate();
+
+        Runnable apply = () -> {
+            if (tf == null) remove(id);
+            else upsert(id, tf, expiredDate);
+            publish(id);
+        };
+        TransactionUtils.afterCommit(apply);
+    }
+
+    // Node khác báo job đổi: đọc lại từ DB (bản đã commit) thay vì gửi cả nội dung qua topic
+    private void reload(Long jobId) {
+        try {
+            List<Job> jobs = jobRepository.findByIdIn(List.of(jobId));
+            Job job = jobs.isEmpty() ? null : jobs.get(0);
+            if (job == null || !isActive(job)) remove(jobId);
+            else upsert(jobId, termFrequencies(job), job.getExpiredDate());
+        } catch (Exception e) {
+            log.warn("Reload job {} into keyword index failed: {}", jobId, e.getMessage());
+        }
+    }
+
+    private void publish(Long jobId) {
+        RedissonClient redisson = redissonProvider.getIfAvailable();
+        if (redisson == null) return;
+        try {
+            redisson.getTopic(CHANGED_TOPIC).publish(nodeId + ":" + jobId);
+        } catch (Exception e) {
+            log.warn("Publish keyword index change for job {} failed: {}", jobId, e.getMessage());
+        }
+    }
+
+    public void remove(Long jobId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(jobId);
+            recordLocked(jobId, null, null);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Gỡ các job đã quá hạn (chạy cùng job maintenance hằng ngày)
+    public int evictExpired(LocalDate today) {
+        lock.writeLock().lock();
+        try {
+            List<Long> expired = docs.entrySet().stream()
+                    .filter(e -> e.getValue().expiredDate() != null && e.getValue().expiredDate().isBefore(today))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            expired.forEach(id -> {
+                removeLocked(id);
+                recordLocked(id, null, null);
+            });
+            return expired.size();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index có trả lời được keyword này không: keyword chỉ gồm ký tự bị tokenizer bỏ
+     * (vd. 1 chữ cái, dấu câu) thì phải quay về LIKE, không phải "không có kết quả".
+     */
+    public boolean canSearch(String keyword) {
+        return isReady() && !VietnameseTokenizer.tokenize(keyword).isEmpty();
+    }
+
+    /**
+     * Job khớp TẤT CẢ token của keyword (token cuối khớp theo prefix), sắp theo điểm BM25 giảm dần,
+     * tối đa {@code maxCandidates} job (dùng cho sort theo relevance).
+     */
+    public LinkedHashMap<Long, Double> search(String keyword) {
+        return search(keyword, maxCandidates);
+    }
+
+    /**
+     * Tập job khớp keyword, dùng làm bộ lọc IN cho phân trang theo sort khác (không cần sắp xếp).
+     * Trả về {@code null} khi số job khớp vượt {@code maxCandidates}: danh sách IN quá dài,
+     * caller quay về LIKE.
+     */
+    public Set<Long> matchingIds(String keyword) {
+        List<String> tokens = VietnameseTokenizer.tokenize(keyword);
+        if (tokens.isEmpty()) return Set.of();
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = scoresLocked(tokens);
+            return scores.size() > maxCandidates ? null : new HashSet<>(scores.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private LinkedHashMap<Long, Double> search(String keyword, int limit) {
+        List<String> tokens = VietnameseTokenizer.tokenize(keyword);
+        LinkedHashMap<Long, Double> out = new LinkedHashMap<>();
+        if (tokens.isEmpty()) return out;
+
+        lock.readLock().lock();
+        try {
+            scoresLocked(tokens).entrySet().stream()
+                    .sorted(Map.Entry.<Long, Double>comparingByValue().reversed()
+                            .thenComparing(Map.Entry.comparingByKey(Comparator.reverseOrder())))
+                    .limit(limit)
+                    .forEach(e -> out.put(e.getKey(), e.getValue()));
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== internals (gọi khi đang giữ lock) =====
+
+    // Điểm BM25 của các job khớp tất cả token (token cuối khớp theo prefix), chưa sắp xếp
+    private Map<Long, Double> scoresLocked(List<String> tokens) {
+        int n = docs.size();
+        if (n == 0) return Map.of();
+        double avgdl = (double) totalLength / n;
+
+        Map<Long, Double> scores = null;
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            boolean prefix = (i == tokens.size() - 1) && token.length() >= MIN_PREFIX_LEN;
+            Map<Long, Double> tokenScores = scoreToken(token, prefix, n, avgdl);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                Map<Long, Double> merged = new HashMap<>();
+                for (Map.Entry<Long, Double> e : scores.entrySet()) {
+                    Double s = tokenScores.get(e.getKey());
+                    if (s != null) merged.put(e.getKey(), e.getValue() + s);
+                }
+                scores = merged;
+            }
+            if (scores.isEmpty()) return scores;
+        }
+        return scores;
+    }
+
+    private Map<Long, Double> scoreToken(String token, boolean prefix, int n, double avgdl) {
+        Map<Long, Double> out = new HashMap<>();
+        Collection<Map<Long, Integer>> matched;
+        if (prefix) {
+            matched = postings.subMap(token, true, token + Character.MAX_VALUE, false).values();
+        } else {
+            Map<Long, Integer> exact = postings.get(token);
+            matched = (exact == null) ? List.of() : List.of(exact);
+        }
+
+        for (Map<Long, Integer> plist : matched) {
+            int df = plist.size();
+            double idf = Math.log(1 + (n - df + 0.5) / (df + 0.5));
+            for (Map.Entry<Long, Integer> p : plist.entrySet()) {
+                IndexedDoc d = docs.get(p.getKey());
+                if (d == null) continue;
+                int tf = p.getValue();
+                double norm = K1 * (1 - B + B * d.length() / avgdl);
+                double s = idf * (tf * (K1 + 1)) / (tf + norm);
+                // prefix có thể khớp nhiều term trong cùng doc -> lấy term tốt nhất
+                out.merge(p.getKey(), s, Math::max);
+            }
+        }
+        return out;
+    }
+
+    private void upsert(Long id, Map<String, Integer> tf, LocalDate expiredDate) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(id);
+            putLocked(id, tf, expiredDate);
+            recordLocked(id, tf, expiredDate);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void putLocked(Long id, Map<String, Integer> tf, LocalDate expiredDate) {
+        if (tf.isEmpty()) return;
+        int length = 0;
+        for (Map.Entry<String, Integer> e : tf.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), k -> new HashMap<>()).put(id, e.getValue());
+            length += e.getValue();
+        }
+        docs.put(id, new IndexedDoc(length, tf.keySet(), expiredDate));
+        totalLength += length;
+    }
+
+    private void recordLocked(Long id, Map<String, Integer> tf, LocalDate expiredDate) {
+        if (rebuilding) pendingDeltas.put(id, new Delta(tf, expiredDate));
+    }
+
+    private void removeLocked(Long id) {
+        IndexedDoc old = docs.remove(id);
+        if (old == null) return;
+        totalLength -= old.length();
+        for (String term : old.terms()) {
+            Map<Long, Integer> plist = postings.get(term);
+            if (plist == null) continue;
+            plist.remove(id);
+            if (plist.isEmpty()) postings.remove(term);
+        }
+    }
+
+    private static Map<String, Integer> termFrequencies(Job job) {
+        Map<String, Integer> tf = new HashMap<>();
+        addField(tf, job.getTitle(), W_TITLE);
+        addField(tf, CommonUtils.stripHtml(job.getDescription()), W_BODY);
+        addField(tf, CommonUtils.stripHtml(job.getRequirements()), W_BODY);
+        if (job.getSkills() != null) {
+            for (Skill s : job.getSkills()) addField(tf, s.getName(), W_SKILL);
+        }
+        return tf;
+    }
+
+    private static void addField(Map<String, Integer> tf, String text, int weight) {
+        for (String t : VietnameseTokenizer.tokenize(text)) {
+            tf.merge(t, weight, Integer::sum);
+        }
+    }
+
+    private static boolean isActive(Job job) {
+        if (job.getStatus() != null && "inactive".equalsIgnoreCase(job.getStatus())) return false;
+        return job.getExpiredDate() == null || !job.getExpiredDate().isBefore(LocalDate.now());
+    }
+}
@@ -0,0 +1,37 @@
+package com.jobhuntly.backend.service.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Tokenizer cho keyword search: bỏ dấu tiếng Việt ("Lập trình viên" -> "lap", "trinh", "vien"),
+ * lowercase, tách theo ký tự không phải chữ/số. Giữ '+', '#' để không mất "c++", "c#".
+ */
+public final class VietnameseTokenizer {
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}+#]+");
+
+    private VietnameseTokenizer() {}
+
+    public static String fold(String text) {
+        if (text == null) return "";
+        String n = Normalizer.normalize(text, Normalizer.Form.NFD);
+        n = COMBINING_MARKS.matcher(n).replaceAll("");
+        return n.replace('đ', 'd').replace('Đ', 'D').toLowerCase(Locale.ROOT);
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> out = new ArrayList<>();
+        if (text == null || text.isBlank()) return out;
+        for (String t : SEPARATORS.split(fold(text))) {
+            if (t.isEmpty()) continue;
+            // bỏ token 1 ký tự (trừ số) để index gọn hơn
+            if (t.length() == 1 && !Character.isDigit(t.charAt(0))) continue;
+            out.add(t);
+        }
+        return out;
+    }
+}
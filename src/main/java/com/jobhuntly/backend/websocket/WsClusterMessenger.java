@@ -0,0 +1,227 @@
+package com.jobhuntly.backend.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.redisson.api.RBatch;
+import org.redisson.api.RSet;
+import org.redisson.api.RTopic;
+import org.redisson.api.RedissonClient;
+import org.redisson.client.codec.StringCodec;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.messaging.SessionConnectedEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+
+import java.security.Principal;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Điểm gửi WebSocket duy nhất cho server -> client.
+ * <ul>
+ *   <li>simple / relay: gửi thẳng qua {@link SimpMessagingTemplate} (relay thì broker ngoài lo việc giữa các node).</li>
+ *   <li>redis: broker vẫn là simple broker trong JVM; mỗi node ghi nhận user nào đang có session ở node mình
+ *   (ws:user-nodes:{userId}), message cho user ở node khác được publish qua topic riêng của node đó.
+ *   Node nhận chỉ giao lại cho session local,
+ *   nên handshake ({@link WsHandshakeHandler}) và {@link WsSubscribeGuard} giữ nguyên.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WsClusterMessenger {
+    private static final String USER_NODES_PREFIX = "ws:user-nodes:";
+    private static final String NODE_TOPIC_PREFIX = "ws:node:";
+    private static final Duration USER_NODES_TTL = Duration.ofHours(1);
+
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<RedissonClient> redissonProvider;
+
+    @Value("${app.websocket.cluster.mode:simple}")
+    private String mode;
+
+    private final String nodeId = UUID.randomUUID().toString();
+    // userId -> session id STOMP đang mở trên node này (tập thay cho bộ đếm: disconnect lặp lại không làm lệch)
+    private final Map<String, Set<String>> localSessions = new ConcurrentHashMap<>();
+    private RedissonClient redisson;
+    private final List<Runnable> unsubscribers = new ArrayList<>();
+
+    record Envelope(String origin, List<String> users, String destination, JsonNode payload) {}
+
+    @PostConstruct
+    void init() {
+        if (!"redis".equalsIgnoreCase(mode)) return;
+        redisson = redissonProvider.getIfAvailable();
+        if (redisson == null) {
+            log.warn("app.websocket.cluster.mode=redis but no RedissonClient; falling back to local delivery");
+            return;
+        }
+        RTopic own = redisson.getTopic(NODE_TOPIC_PREFIX + nodeId, StringCodec.INSTANCE);
+        int ownId = own.addListener(String.class, (ch, msg) -> deliverLocal(msg));
+        unsubscribers.add(() -> own.removeListener(ownId));
+        log.info("WebSocket cluster bridge enabled, node {}", nodeId);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (redisson == null) return;
+        unsubscribers.forEach(Runnable::run);
+        for (String user : localSessions.keySet()) {
+            try {
+                nodesOf(user).remove(nodeId);
+            } catch (Exception ignore) {
+                // TTL sẽ dọn
+            }
+        }
+    }
+
+    public void sendToUser(String user, String destination, Object payload) {
+        sendToUsers(List.of(user), destination, payload);
+    }
+
+    /**
+     * Gửi cùng 1 payload cho nhiều user: user có session ở node này nhận trực tiếp,
+     * user ở node khác được gom theo node, mỗi node 1 lần publish.
+     */
+    public void sendToUsers(Collection<String> users, String destination, Object payload) {
+        if (users.isEmpty()) return;
+        if (redisson == null) {
+            for (String u : users) sendLocal(u, destination, payload);
+            return;
+        }
+
+        List<String> userList = new ArrayList<>(users);
+        Map<String, List<String>> byNode = new HashMap<>();
+        try {
+            RBatch batch = redisson.createBatch();
+            for (String u : userList) {
+                batch.<String>getSet(USER_NODES_PREFIX + u, StringCodec.INSTANCE).readAllAsync();
+            }
+            List<?> nodes = batch.execute().getResponses();
+            for (int i = 0; i < userList.size(); i++) {
+                for (Object node : (Collection<?>) nodes.get(i)) {
+                    if (!nodeId.equals(node)) {
+                        byNode.computeIfAbsent(node.toString(), k -> new ArrayList<>()).add(userList.get(i));
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Lookup user nodes failed, delivering locally only: {}", e.getMessage());
+        }
+
+        for (String u : userList) {
+            if (localSessions.containsKey(u)) sendLocal(u, destination, payload);
+        }
+        if (byNode.isEmpty()) return;
+
+        JsonNode json = objectMapper.valueToTree(payload);
+        byNode.forEach((node, nodeUsers) ->
+                publish(NODE_TOPIC_PREFIX + node, new Envelope(nodeId, nodeUsers, destination, json)));
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @EventListener
+    public void onConnected(SessionConnectedEvent event) {
+        String user = userOf(event.getUser());
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(event.getMessage().getHeaders());
+        if (user == null || sessionId == null) return;
+        boolean[] first = new boolean[1];
+        localSessions.compute(user, (k, v) -> {
+            if (v == null) {
+                v = ConcurrentHashMap.newKeySet();
+                first[0] = true;
+            }
+            v.add(sessionId);
+            return v;
+        });
+        if (first[0] && redisson != null) registerNode(user);
+    }
+
+    @EventListener
+    public void onDisconnected(SessionDisconnectEvent event) {
+        String user = userOf(event.getUser());
+        String sessionId = event.getSessionId();
+        if (user == null || sessionId == null) return;
+        // SessionDisconnectEvent có thể đến nhiều lần cho 1 session: chỉ lần gỡ được session id mới tính
+        boolean[] last = new boolean[1];
+        localSessions.computeIfPresent(user, (k, v) -> {
+            if (!v.remove(sessionId) || !v.isEmpty()) return v;
+            last[0] = true;
+            return null;
+        });
+        if (last[0] && redisson != null) {
+            try {
+                nodesOf(user).remove(nodeId);
+            } catch (Exception e) {
+                log.debug("Unregister ws node for user {} failed: {}", user, e.getMessage());
+            }
+        }
+    }
+
+    // Gia hạn TTL cho user đang online ở node này (node chết thì mục của nó tự hết hạn)
+    @Scheduled(fixedDelay = 15 * 60 * 1000L)
+    public void refreshRegistrations() {
+        if (redisson == null) return;
+        localSessions.keySet().forEach(this::registerNode);
+    }
+
+    private void registerNode(String user) {
+        try {
+            RSet<String> set = nodesOf(user);
+            set.add(nodeId);
+            set.expire(USER_NODES_TTL);
+        } catch (Exception e) {
+            log.debug("Register ws node for user {} failed: {}", user, e.getMessage());
+        }
+    }
+
+    private RSet<String> nodesOf(String user) {
+        return redisson.getSet(USER_NODES_PREFIX + user, StringCodec.INSTANCE);
+    }
+
+    private void publish(String topic, Envelope envelope) {
+        try {
+            redisson.getTopic(topic, StringCodec.INSTANCE).publish(objectMapper.writeValueAsString(envelope));
+        } catch (Exception e) {
+            log.warn("Publish ws message to {} failed: {}", topic, e.getMessage());
+        }
+    }
+
+    private void deliverLocal(String raw) {
+        try {
+            Envelope env = objectMapper.readValue(raw, Envelope.class);
+            if (nodeId.equals(env.origin())) return;
+            for (String u : env.users()) {
+                if (localSessions.containsKey(u)) sendLocal(u, env.destination(), env.payload());
+            }
+        } catch (Exception e) {
+            log.warn("Invalid ws bridge message: {}", e.getMessage());
+        }
+    }
+
+    private void sendLocal(String user, String destination, Object payload) {
+        try {
+            messagingTemplate.convertAndSendToUser(user, destination, payload);
+        } catch (Exception e) {
+            log.debug("Push to user {} failed: {}", user, e.getMessage());
+        }
+    }
+
+    private static String userOf(Principal principal) {
+        return principal == null ? null : principal.getName();
+    }
+}
@@ -1,6 +1,6 @@
 package com.jobhuntly.backend.websocket;
 
-import com.jobhuntly.backend.repository.FollowRepository;
+import com.jobhuntly.backend.service.cache.FollowSetCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.messaging.Message;
 import org.springframework.messaging.MessageChannel;
@@ -15,7 +15,7 @@ import java.util.regex.Pattern;
 @Component
 @RequiredArgsConstructor
 public class WsSubscribeGuard implements ChannelInterceptor {
-    private final FollowRepository followRepo;
+    private final FollowSetCache followSetCache;
     private static final Pattern COMPANY_TOPIC = Pattern.compile("^/topic/company\\.(\\d+)$");
 
     @Override
@@ -31,7 +31,7 @@ public class WsSubscribeGuard implements ChannelInterceptor {
             if (m.matches()) {
                 Long companyId = Long.valueOf(m.group(1));
                 Long userId = Long.valueOf(principal.getName());
-                if (!followRepo.existsByUserIdAndCompanyId(userId, companyId)) {
+                if (!followSetCache.isFollowing(userId, companyId)) {
                     return null;
                 }
             }
@@ -941,4 +941,105 @@ CREATE TABLE IF NOT EXISTS interviews (
 );
 
 ALTER TABLE interviews
-  ADD COLUMN meeting_room VARCHAR(255) NULL;
\ No newline at end of file
+  ADD COLUMN meeting_room VARCHAR(255) NULL;
+
+-- keyset pagination cho /job/search-lite/keyset (sort theo date_post, job_id)
+CREATE INDEX idx_jobs_date_post_id ON jobs (date_post, job_id);
+
+-- facet index cho search: thay EXISTS + lower(name) bằng lookup theo id
+CREATE TABLE IF NOT EXISTS job_search_facets (
+  facet_row_id  BIGINT AUTO_INCREMENT PRIMARY KEY,
+  job_id        INT NOT NULL,
+  facet_type    VARCHAR(20) NOT NULL,           -- CATEGORY, SKILL, LEVEL, WORK_TYPE, WARD, CITY
+  facet_id      INT NOT NULL,
+
+  CONSTRAINT fk_job_search_facets_job
+    FOREIGN KEY (job_id) REFERENCES jobs(job_id)
+    ON DELETE CASCADE ON UPDATE CASCADE,
+
+  UNIQUE KEY ux_facet_type_id_job (facet_type, facet_id, job_id),
+  KEY idx_facet_job (job_id)
+);
+
+-- backfill cho job đã có
+INSERT IGNORE INTO job_search_facets (job_id, facet_type, facet_id)
+SELECT job_id, 'CATEGORY', cate_id FROM job_category;
+INSERT IGNORE INTO job_search_facets (job_id, facet_type, facet_id)
+SELECT job_id, 'SKILL', skill_id FROM job_skill;
+INSERT IGNORE INTO job_search_facets (job_id, facet_type, facet_id)
+SELECT job_id, 'LEVEL', level_id FROM job_level;
+INSERT IGNORE INTO job_search_facets (job_id, facet_type, facet_id)
+SELECT job_id, 'WORK_TYPE', work_type_id FROM job_work_type;
+INSERT IGNORE INTO job_search_facets (job_id, facet_type, facet_id)
+SELECT job_id, 'WARD', ward_id FROM ward_job;
+INSERT IGNORE INTO job_search_facets (job_id, facet_type, facet_id)
+SELECT DISTINCT wj.job_id, 'CITY', w.city_id
+FROM ward_job wj
+JOIN location_ward w ON w.ward_id = wj.ward_id;
+
+-- fan-out follower theo lô (keyset trên follow_id)
+CREATE INDEX idx_follows_company_follow ON follows (company_id, follow_id);
+
+-- company event lưu 1 lần, feed gộp lúc đọc theo follows + watermark của user
+CREATE TABLE IF NOT EXISTS company_events (
+  event_id    BIGINT AUTO_INCREMENT PRIMARY KEY,
+  company_id  INT NOT NULL,
+  job_id      INT NULL,
+  type        VARCHAR(50) NOT NULL,
+  title       VARCHAR(200) NOT NULL,
+  message     TEXT NOT NULL,
+  link        VARCHAR(255) DEFAULT NULL,
+  created_at  TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+
+  CONSTRAINT fk_company_events_company
+    FOREIGN KEY (company_id) REFERENCES companies(company_id)
+    ON DELETE CASCADE ON UPDATE CASCADE,
+
+  KEY idx_company_events_company_created (company_id, created_at)
+);
+
+CREATE TABLE IF NOT EXISTS notification_read_state (
+  user_id          INT NOT NULL PRIMARY KEY,
+  company_read_at  TIMESTAMP(3) NULL,
+
+  CONSTRAINT fk_notification_read_state_user
+    FOREIGN KEY (user_id) REFERENCES users(user_id)
+    ON DELETE CASCADE ON UPDATE CASCADE
+);
+
+-- UID cao nhất đã nhận qua IMAP (IDLE/poll), theo folder
+CREATE TABLE IF NOT EXISTS mail_sync_state (
+  folder_key    VARCHAR(255) NOT NULL PRIMARY KEY,
+  uid_validity  BIGINT NOT NULL,
+  last_uid      BIGINT NOT NULL,
+  seeding       BOOLEAN NOT NULL DEFAULT TRUE,
+  updated_at    TIMESTAMP(3) NOT NULL
+);
+
+-- thư chờ gửi (outbox), ghi cùng transaction nghiệp vụ, gửi nền có retry
+CREATE TABLE IF NOT EXISTS mail_outbox (
+  id                 BIGINT AUTO_INCREMENT PRIMARY KEY,
+  channel            VARCHAR(20) NOT NULL,
+  from_email         VARCHAR(255) NOT NULL,
+  from_name          VARCHAR(255) DEFAULT NULL,
+  to_email           VARCHAR(255) NOT NULL,
+  cc                 VARCHAR(1000) DEFAULT NULL,
+  bcc                VARCHAR(1000) DEFAULT NULL,
+  subject            VARCHAR(500) NOT NULL,
+  body_text          LONGTEXT,
+  body_html          LONGTEXT,
+  message_id         VARCHAR(255) NOT NULL,
+  in_reply_to        VARCHAR(255) DEFAULT NULL,
+  references_header  VARCHAR(2000) DEFAULT NULL,
+  attachment_name    VARCHAR(255) DEFAULT NULL,
+  attachment_type    VARCHAR(255) DEFAULT NULL,
+  attachment_data    MEDIUMBLOB,
+  status             VARCHAR(20) NOT NULL,
+  attempts           INT NOT NULL DEFAULT 0,
+  next_attempt_at    TIMESTAMP(3) NOT NULL,
+  last_error         VARCHAR(1000) DEFAULT NULL,
+  created_at         TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3),
+  sent_at            TIMESTAMP(3) NULL,
+
+  KEY idx_mail_outbox_status_next (status, next_attempt_at)
+);
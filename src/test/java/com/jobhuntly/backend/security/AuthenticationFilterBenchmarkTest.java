@@ -0,0 +1,122 @@
+package com.jobhuntly.backend.security;
+
+import com.jobhuntly.backend.entity.Role;
+import com.jobhuntly.backend.security.cookie.AuthCookieService;
+import com.jobhuntly.backend.security.cookie.CookieProperties;
+import com.jobhuntly.backend.security.jwt.JwtProperties;
+import com.jobhuntly.backend.security.jwt.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.security.Key;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Đo chi phí xác thực access token mỗi request, 3 cách:
+ * <ul>
+ *   <li>baseline: dựng JwtParser mới mỗi lần rồi verify HMAC + parse JSON (như trước khi có cache);</li>
+ *   <li>JwtUtil với {@code validated-cache-size = 0}: parser dùng chung, không nhớ token;</li>
+ *   <li>JwtUtil có cache: lần sau chỉ còn SHA-256 + tra map.</li>
+ * </ul>
+ * Đo cả {@link JwtUtil#parseAndValidate} và toàn bộ {@link AuthenticationFilter} (Bearer header).
+ * Chỉ assert tính đúng; thời gian được ghi vào report của JUnit để so sánh.
+ * Chạy bằng {@code ./gradlew benchmark} (không nằm trong {@code gradle test}).
+ */
+@Tag("benchmark")
+class AuthenticationFilterBenchmarkTest {
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 20_000;
+
+    private final JwtUtil uncached = jwtUtil(0);
+    private final JwtUtil cached = jwtUtil(10_000);
+    // cùng secret -> token của cached verify được ở mọi đường
+    private final String token = cached.issueAccessToken(42L, "bench@example.com", new Role(1, "CANDIDATE"));
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void parseAndValidate(TestReporter reporter) throws Exception {
+        Key key = cached.getKey();
+        long baseline = timePerOp(() -> Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token).getBody());
+        long shared = timePerOp(() -> uncached.parseAndValidate(token));
+        long hit = timePerOp(() -> cached.parseAndValidate(token));
+
+        Claims first = cached.parseAndValidate(token);
+        assertSame(first, cached.parseAndValidate(token)); // lần 2 lấy từ cache
+        assertEquals(42L, cached.userIdFromClaims(first));
+        assertEquals(uncached.parseAndValidate(token).getSubject(), first.getSubject());
+
+        report(reporter, "jwt.parse", baseline, shared, hit);
+    }
+
+    @Test
+    void authenticationFilter(TestReporter reporter) throws Exception {
+        AuthenticationFilter withoutCache = filter(uncached);
+        AuthenticationFilter withCache = filter(cached);
+
+        long shared = timePerOp(() -> authenticate(withoutCache));
+        long hit = timePerOp(() -> authenticate(withCache));
+
+        assertEquals("ROLE_CANDIDATE", authenticate(withCache));
+        assertEquals("ROLE_CANDIDATE", authenticate(withoutCache));
+
+        report(reporter, "auth-filter.bearer", -1, shared, hit);
+    }
+
+    private String authenticate(AuthenticationFilter filter) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/v1/jobs");
+        req.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        filter.doFilterInternal(req, new MockHttpServletResponse(), new MockFilterChain());
+        var auth = SecurityContextHolder.getContext().getAuthentication();
+        assertNotNull(auth);
+        return auth.getAuthorities().iterator().next().getAuthority();
+    }
+
+    private static long timePerOp(Callable<?> op) throws Exception {
+        for (int i = 0; i < WARMUP; i++) assertNotNull(op.call());
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) op.call();
+        return (System.nanoTime() - start) / ITERATIONS;
+    }
+
+    private static void report(TestReporter reporter, String what, long baseline, long shared, long hit) {
+        Map<String, String> entries = new LinkedHashMap<>();
+        if (baseline >= 0) entries.put(what + ".new-parser.us-per-op", String.format("%.2f", baseline / 1e3));
+        entries.put(what + ".shared-parser.us-per-op", String.format("%.2f", shared / 1e3));
+        entries.put(what + ".validated-cache.us-per-op", String.format("%.2f", hit / 1e3));
+        reporter.publishEntry(entries);
+    }
+
+    private static JwtUtil jwtUtil(int validatedCacheSize) {
+        JwtProperties props = new JwtProperties();
+        props.setSecret(Base64.getEncoder().encodeToString("benchmark-secret-benchmark-secret-0123".getBytes()));
+        props.setValidatedCacheSize(validatedCacheSize);
+        return new JwtUtil(props);
+    }
+
+    private static AuthenticationFilter filter(JwtUtil jwtUtil) {
+        return new AuthenticationFilter(jwtUtil, new CookieProperties(),
+                mock(AuthCookieService.class), mock(PrincipalSnapshotCache.class));
+    }
+}
@@ -0,0 +1,164 @@
+package com.jobhuntly.backend.security;
+
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdToken;
+import com.google.api.client.googleapis.auth.oauth2.GoogleIdTokenVerifier;
+import com.google.api.client.http.LowLevelHttpRequest;
+import com.google.api.client.http.LowLevelHttpResponse;
+import com.google.api.client.json.Json;
+import com.google.api.client.json.JsonFactory;
+import com.google.api.client.json.gson.GsonFactory;
+import com.google.api.client.json.webtoken.JsonWebSignature;
+import com.google.api.client.testing.http.MockHttpTransport;
+import com.google.api.client.testing.http.MockLowLevelHttpRequest;
+import com.google.api.client.testing.http.MockLowLevelHttpResponse;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * So sánh verify Google ID token kiểu cũ (mỗi lần login 1 verifier mới -> tải lại cert của Google)
+ * với {@link GoogleTokenVerifier} dùng chung, key đã tải sẵn. Endpoint cert được giả lập bằng
+ * {@link MockHttpTransport} có độ trễ cố định nên chạy offline; thời gian trung bình mỗi lần verify
+ * được ghi vào report của JUnit. Chạy bằng {@code ./gradlew benchmark}.
+ */
+@Tag("benchmark")
+class GoogleTokenVerifierBenchmarkTest {
+    private static final String CLIENT_ID = "bench-client.apps.googleusercontent.com";
+    private static final long CERTS_LATENCY_MS = 20;
+    private static final int COLD_ITERATIONS = 20;
+    private static final int WARM_ITERATIONS = 500;
+
+    private static final JsonFactory JSON = GsonFactory.getDefaultInstance();
+
+    @TempDir
+    static Path dir;
+
+    private static String certsJson;
+    private static String idToken;
+
+    private final AtomicInteger certFetches = new AtomicInteger();
+
+    @BeforeAll
+    static void generateKeyAndToken() throws Exception {
+        // cặp key RSA + cert tự ký bằng keytool của JDK (không cần thư viện crypto ngoài)
+        Path ks = dir.resolve("google-bench.p12");
+        Process p = new ProcessBuilder(
+                Path.of(System.getProperty("java.home"), "bin", "keytool").toString(),
+                "-genkeypair", "-alias", "bench", "-keyalg", "RSA", "-keysize", "2048",
+                "-dname", "CN=bench", "-validity", "2", "-storetype", "PKCS12",
+                "-keystore", ks.toString(), "-storepass", "changeit", "-keypass", "changeit")
+                .redirectErrorStream(true)
+                .start();
+        p.getInputStream().transferTo(InputStream.nullOutputStream());
+        assertEquals(0, p.waitFor(), "keytool failed");
+
+        KeyStore store = KeyStore.getInstance("PKCS12");
+        try (InputStream in = Files.newInputStream(ks)) {
+            store.load(in, "changeit".toCharArray());
+        }
+        PrivateKey privateKey = (PrivateKey) store.getKey("bench", "changeit".toCharArray());
+        X509Certificate cert = (X509Certificate) store.getCertificate("bench");
+
+        String pem = "-----BEGIN CERTIFICATE-----\n"
+                + Base64.getMimeEncoder(64, "\n".getBytes(StandardCharsets.US_ASCII)).encodeToString(cert.getEncoded())
+                + "\n-----END CERTIFICATE-----\n";
+        certsJson = JSON.toString(Map.of("bench", pem));
+
+        long now = System.currentTimeMillis() / 1000;
+        JsonWebSignature.Header header = new JsonWebSignature.Header().setAlgorithm("RS256").setKeyId("bench");
+        GoogleIdToken.Payload payload = new GoogleIdToken.Payload()
+                .setIssuer("https://accounts.google.com")
+                .setAudience(CLIENT_ID)
+                .setSubject("1234567890")
+                .setIssuedAtTimeSeconds(now)
+                .setExpirationTimeSeconds(now + 3600);
+        payload.setEmail("bench@example.com");
+        idToken = JsonWebSignature.signUsingRsaSha256(privateKey, JSON, header, payload);
+    }
+
+    @Test
+    void sharedPrefetchedVerifierSkipsCertFetch(TestReporter reporter) {
+        MockHttpTransport transport = certsEndpoint();
+
+        // cách cũ: verifier tạo mới mỗi lần login
+        long cold = timePerOp(COLD_ITERATIONS, () -> {
+            try {
+                return newVerifier(transport).verify(idToken);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertEquals(COLD_ITERATIONS + 1, certFetches.get()); // + 1 lượt warm-up
+
+        // cách mới: 1 verifier, key tải sẵn lúc khởi động (lần chạy scheduled đầu tiên)
+        certFetches.set(0);
+        GoogleTokenVerifier shared = new GoogleTokenVerifier(newVerifier(transport));
+        shared.refreshKeysIfExpiring();
+        long warm = timePerOp(WARM_ITERATIONS, () -> shared.verify(idToken));
+        assertEquals(1, certFetches.get());
+        assertTrue(warm < cold, "shared verifier should not pay the cert fetch latency");
+
+        reporter.publishEntry(Map.of(
+                "google.verify.cold.ms-per-op", String.format("%.3f", cold / 1e6),
+                "google.verify.warm.ms-per-op", String.format("%.3f", warm / 1e6)));
+    }
+
+    private static long timePerOp(int iterations, Supplier<GoogleIdToken> op) {
+        assertNotNull(op.get()); // warm-up JIT + kiểm tra token hợp lệ
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            assertNotNull(op.get());
+        }
+        return (System.nanoTime() - start) / iterations;
+    }
+
+    private static GoogleIdTokenVerifier newVerifier(MockHttpTransport transport) {
+        return new GoogleIdTokenVerifier.Builder(transport, JSON)
+                .setAudience(List.of(CLIENT_ID))
+                .build();
+    }
+
+    // endpoint cert của Google: trễ CERTS_LATENCY_MS, Cache-Control 1 giờ như thật
+    private MockHttpTransport certsEndpoint() {
+        return new MockHttpTransport() {
+            @Override
+            public LowLevelHttpRequest buildRequest(String method, String url) {
+                return new MockLowLevelHttpRequest(url) {
+                    @Override
+                    public LowLevelHttpResponse execute() {
+                        certFetches.incrementAndGet();
+                        try {
+                            Thread.sleep(CERTS_LATENCY_MS);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                        MockLowLevelHttpResponse res = new MockLowLevelHttpResponse();
+                        res.setContentType(Json.MEDIA_TYPE);
+                        res.addHeader("Cache-Control", "public, max-age=3600");
+                        res.setContent(certsJson);
+                        return res;
+                    }
+                };
+            }
+        };
+    }
+}